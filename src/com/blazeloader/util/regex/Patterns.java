@@ -3,7 +3,7 @@ package com.blazeloader.util.regex;
 public final class Patterns {
 	public static final String
 		COMMA = ",",
-		PERIOD = ".",
+		PERIOD = "\\.",
 		SPACE = "\\s",
 		LINE_SEPARATOR = System.lineSeparator(),
 		COLON = "\\:",
@@ -1,9 +1,19 @@
 package net.acomputerdog.OBFUtil.map;
 
+import java.util.Spliterator;
+
+import net.acomputerdog.OBFUtil.table.EntryVisitor;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 
 public interface ObfMap<T extends ObfMap.Entry> {
 	
+	/**
+	 * Gets the number of obfuscated names held by this map.
+	 */
+	public default int size() {
+		return getAllObf().length;
+	}
+	
 	public String[] getAllObf();
 	
 	public String[] getAllDeObf();
@@ -16,8 +26,31 @@ public interface ObfMap<T extends ObfMap.Entry> {
 	
 	public boolean hasDeObf(String deobf);
 	
+	public String[] getObfMembers(String obfOwner);
+	
+	public String[] getDeObfMembers(String deobfOwner);
+	
 	public void add(String obf, String deobf);
 	
+	/**
+	 * Removes the entry of an obfuscated name.
+	 *
+	 * @return The removed entry, or null if there was none
+	 * @throws UnsupportedOperationException if this map can not remove entries.
+	 */
+	public default T remove(String obf) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support removing entries");
+	}
+	
+	/**
+	 * Sizes this map to take the given number of further entries without rehashing.
+	 */
+	public void ensureCapacity(int additional);
+	
+	public <E extends Exception> void visit(EntryVisitor<E> visitor) throws E;
+	
+	public Spliterator<T> spliterator();
+	
 	public void write(OBFTable table, boolean overwrite, TargetType type);
 	
     public static interface Entry {
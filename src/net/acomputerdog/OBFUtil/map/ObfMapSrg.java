@@ -8,6 +8,8 @@ public interface ObfMapSrg<T extends ObfMapSrg.Entry> extends ObfMap<T> {
 	
 	public boolean hasSrg(String srg);
 	
+	public String[] getSrgMembers(String srgOwner);
+	
 	public void add(String obf, String deobf, String srg);
 	
     public static interface Entry extends ObfMap.Entry {
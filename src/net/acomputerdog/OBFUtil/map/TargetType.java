@@ -47,18 +47,59 @@ public enum TargetType {
      * @return Return the TargetType identified by type
      */
     public static TargetType getType(String type) {
+        return getType((CharSequence)type);
+    }
+
+    /**
+     * Gets a TargetType from it's name or an alias, without requiring the name as a String.
+     *
+     * @param type The name to identify with
+     * @return Return the TargetType identified by type
+     */
+    public static TargetType getType(CharSequence type) {
         if (type == null) {
             return null;
         }
         for (TargetType tt : values()) {
             for (String str : tt.aliases) {
-                if (type.equalsIgnoreCase(str)) {
+                if (equalsIgnoreCase(str, type)) {
                     return tt;
                 }
             }
         }
         return null;
     }
+
+    /**
+     * Gets a TargetType from its exact name, as {@link #valueOf(String)} does, without requiring the name as a String.
+     *
+     * @param name The name of the TargetType, e.g. "METHOD"
+     * @return Return the TargetType with that name, or null if there is none
+     */
+    public static TargetType getTypeByName(CharSequence name) {
+        if (name == null) {
+            return null;
+        }
+        for (TargetType tt : values()) {
+            if (tt.name().contentEquals(name)) {
+                return tt;
+            }
+        }
+        return null;
+    }
+
+    private static boolean equalsIgnoreCase(String alias, CharSequence type) {
+        if (alias.length() != type.length()) {
+            return false;
+        }
+        for (int i = 0; i < alias.length(); i++) {
+            char c = type.charAt(i);
+            if (alias.charAt(i) != c && alias.charAt(i) != Character.toUpperCase(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
     
     private final static TargetType[] parsable;
     
@@ -1,9 +1,13 @@
 package net.acomputerdog.OBFUtil.map;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 
-public class TargetTypeMap<T> extends HashMap<TargetType, T> {
+public class TargetTypeMap<T> extends EnumMap<TargetType, T> {
 	private static final long serialVersionUID = 2485577485561601623L;
+	
+	public TargetTypeMap() {
+		super(TargetType.class);
+	}
 
 	public T getChecked(TargetType type) {
 		if (!containsKey(type)) throw new IllegalArgumentException("Unknown target type: " + type.name());
@@ -1,12 +1,12 @@
 package net.acomputerdog.OBFUtil.parse;
 
+import net.acomputerdog.OBFUtil.table.ColumnarOBFTableSRG;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.StringReader;
 
 /**
  * Reads and write obfuscation mappings to a file.
@@ -22,16 +22,12 @@ public abstract class FileParser {
      */
 	public void loadEntries(File file, OBFTable table, boolean overwrite) throws IOException {
         if (file == null) throw new IllegalArgumentException("File must not be null!");
-        BufferedReader in = null;
         try {
-            in = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
-            parseFile(in, table, overwrite);
+            parseFile(LineTokenizer.open(file), table, overwrite);
         } catch (IOException e) {
         	throw new IOException("Exception whilst reading file", e);
         } catch (IllegalArgumentException e) {
         	throw new IOException("Exception whilst reading file", e);
-        } finally {
-            if (in != null) in.close();
         }
     }
     
@@ -44,6 +40,49 @@ public abstract class FileParser {
 	 */
     protected abstract void parseFile(BufferedReader reader, OBFTable table, boolean overwrite) throws IOException;
     
+    /**
+     * Loads a file that has been read into memory.  Parsers of line based formats override this to work on the bytes directly,
+     * by default the text is decoded and passed to {@link #parseFile(BufferedReader, OBFTable, boolean)}.
+     * 
+     * @param tokens		Tokenizer over the file contents
+     * @param table     	The table to write to.
+     * @param overwrite 	If true overwrite existing mappings.
+     */
+    protected void parseFile(LineTokenizer tokens, OBFTable table, boolean overwrite) throws IOException {
+    	parseFile(new BufferedReader(new StringReader(tokens.remaining())), table, overwrite);
+    }
+    
+    /**
+     * Passes all entries located in a File to a visitor as they are read, without loading them into a table.
+     *
+     * @param file      The file to load from.  Must exist.
+     * @param visitor   The visitor to pass the entries to.  Its {@link MappingVisitor#visitEnd()} is called once the file has been read.
+     */
+    public void visitEntries(File file, MappingVisitor visitor) throws IOException {
+        if (file == null) throw new IllegalArgumentException("File must not be null!");
+        try {
+            parseFile(LineTokenizer.open(file), visitor);
+        } catch (IOException e) {
+        	throw new IOException("Exception whilst reading file", e);
+        } catch (IllegalArgumentException e) {
+        	throw new IOException("Exception whilst reading file", e);
+        }
+        visitor.visitEnd();
+    }
+    
+    /**
+     * Passes the entries of a file that has been read into memory to a visitor.
+     * By default the file is loaded into a temporary table, which is then passed to the visitor.
+     * 
+     * @param tokens		Tokenizer over the file contents
+     * @param visitor		The visitor to pass the entries to.  Not ended by this method.
+     */
+    protected void parseFile(LineTokenizer tokens, MappingVisitor visitor) throws IOException {
+    	OBFTable table = new ColumnarOBFTableSRG();
+    	parseFile(tokens, table, true);
+    	visitor.visitTable(table);
+    }
+    
     /**
      * Saves all entries located in an OBFTable into a file.
      *
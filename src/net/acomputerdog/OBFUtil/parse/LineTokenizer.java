@@ -0,0 +1,493 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits UTF-8 text into lines and lines into fields without creating strings for them.
+ * <p>
+ * Fields are kept as byte ranges of the current line.  Delimiters must be ASCII, which never occurs inside a multi-byte UTF-8 sequence,
+ * so lines can be split on the raw bytes.  Strings are only decoded for the fields a parser actually keeps, through {@link #field(int)}
+ * or the text methods that join several fields into one string.
+ * <p>
+ * Lines end at "\n", "\r" or "\r\n", like {@link java.io.BufferedReader#readLine()}.
+ * Splitting follows {@link String#split(String)}: a line without delimiters is one field and trailing empty fields are dropped.
+ * <p>
+ * Tokenizers are not thread-safe, use {@link #divide(int)} to hand parts of the input to other threads.
+ */
+public final class LineTokenizer {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final byte[] bytes;
+	private final int limit;
+	private int position;
+
+	private int lineStart;
+	private int lineEnd;
+	private int lineNumber;
+
+	private int[] starts = new int[8];
+	private int[] ends = new int[8];
+	private int fields;
+
+	private char[] text = new char[128];
+	private int textLength;
+
+	private final FieldView view = new FieldView();
+
+	/**
+	 * Creates a tokenizer over the remaining bytes of a buffer.  Buffers backed by an array are read in place, others are copied once.
+	 * A leading byte order mark is skipped.
+	 */
+	public LineTokenizer(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			bytes = buffer.array();
+			position = buffer.arrayOffset() + buffer.position();
+			limit = buffer.arrayOffset() + buffer.limit();
+		} else {
+			bytes = new byte[buffer.remaining()];
+			buffer.duplicate().get(bytes);
+			position = 0;
+			limit = bytes.length;
+		}
+		if (limit - position >= 3 && bytes[position] == (byte)0xEF && bytes[position + 1] == (byte)0xBB && bytes[position + 2] == (byte)0xBF) position += 3;
+	}
+
+	private LineTokenizer(byte[] bytes, int position, int limit) {
+		this.bytes = bytes;
+		this.position = position;
+		this.limit = limit;
+	}
+
+	/**
+	 * Reads a whole file through its channel.
+	 */
+	public static LineTokenizer open(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE - 8) throw new IOException("File too large: " + file);
+			ByteBuffer buffer = ByteBuffer.allocate((int)size);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0);
+			buffer.flip();
+			return new LineTokenizer(buffer);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Reads a stream to its end.  The stream is not closed.
+	 */
+	public static LineTokenizer read(InputStream stream) throws IOException {
+		byte[] buffer = new byte[8192];
+		int length = 0;
+		int read;
+		while ((read = stream.read(buffer, length, buffer.length - length)) != -1) {
+			length += read;
+			if (length == buffer.length) {
+				byte[] grown = new byte[buffer.length * 2];
+				System.arraycopy(buffer, 0, grown, 0, length);
+				buffer = grown;
+			}
+		}
+		return new LineTokenizer(ByteBuffer.wrap(buffer, 0, length));
+	}
+
+	/**
+	 * Reads a character stream to its end, for callers that only have a reader.  The text is encoded to UTF-8 first.  The reader is not closed.
+	 */
+	public static LineTokenizer read(Reader reader) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		char[] buffer = new char[8192];
+		int read;
+		while ((read = reader.read(buffer)) != -1) builder.append(buffer, 0, read);
+		return new LineTokenizer(ByteBuffer.wrap(builder.toString().getBytes(UTF8)));
+	}
+
+	/**
+	 * Splits the remaining input into tokenizers of about the given number of bytes each.  Every part ends after a line break, or at the end of the input.
+	 * The parts share this tokenizer's bytes and count their lines from zero.  This tokenizer is left at the end of its input.
+	 */
+	public List<LineTokenizer> divide(int chunkSize) {
+		List<LineTokenizer> parts = new ArrayList<LineTokenizer>();
+		int start = position;
+		while (start < limit) {
+			int end = (int)Math.min((long)start + chunkSize, limit);
+			while (end < limit && bytes[end - 1] != '\n') end++;
+			parts.add(new LineTokenizer(bytes, start, end));
+			start = end;
+		}
+		position = limit;
+		return parts;
+	}
+
+	/**
+	 * Moves to the next line and clears the fields of the previous one.
+	 *
+	 * @return False if there are no more lines.
+	 */
+	public boolean nextLine() {
+		if (position >= limit) return false;
+		int end = position;
+		while (end < limit && bytes[end] != '\n' && bytes[end] != '\r') end++;
+		lineStart = position;
+		lineEnd = end;
+		position = end + 1;
+		if (end < limit && bytes[end] == '\r' && position < limit && bytes[position] == '\n') position++;
+		lineNumber++;
+		fields = 0;
+		return true;
+	}
+
+	/**
+	 * Gets the number of the current line, counting from one.
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Sets the number of the current line, so a part returned by {@link #divide(int)} can report lines by their position in the whole input.
+	 */
+	public void setLineNumber(int lineNumber) {
+		this.lineNumber = lineNumber;
+	}
+
+	/**
+	 * Gets the length of the current line in bytes.
+	 */
+	public int length() {
+		return lineEnd - lineStart;
+	}
+
+	/**
+	 * Gets a byte of the current line.
+	 */
+	public byte byteAt(int index) {
+		return bytes[lineStart + index];
+	}
+
+	/**
+	 * Gets the number of leading bytes of the current line that {@link String#trim()} would remove.
+	 */
+	public int indent() {
+		int i = lineStart;
+		while (i < lineEnd && (bytes[i] & 0xFF) <= ' ') i++;
+		return i - lineStart;
+	}
+
+	/**
+	 * Checks if the current line is empty or consists of nothing but the characters {@link String#trim()} removes.
+	 */
+	public boolean isBlank() {
+		return indent() == length();
+	}
+
+	/**
+	 * Gets the current line as a string, for messages.
+	 */
+	public String line() {
+		return new String(bytes, lineStart, lineEnd - lineStart, UTF8);
+	}
+
+	/**
+	 * Gets the remaining input, after the current line, as a string.
+	 */
+	public String remaining() {
+		return new String(bytes, position, limit - position, UTF8);
+	}
+
+	/**
+	 * Splits the current line at every occurrence of a delimiter, replacing any fields it had before.
+	 *
+	 * @param delimiter An ASCII character
+	 * @return The number of fields
+	 */
+	public int split(char delimiter) {
+		fields = 0;
+		addFields(lineStart, lineEnd, delimiter, false);
+		return fields;
+	}
+
+	/**
+	 * Splits the current line at every whitespace character, as {@code split("\\s")} would.
+	 *
+	 * @return The number of fields
+	 */
+	public int splitWhitespace() {
+		fields = 0;
+		addFields(lineStart, lineEnd, ' ', true);
+		return fields;
+	}
+
+	/**
+	 * Splits a single field at every occurrence of a delimiter.  Its parts take its place, following fields move back to make room.
+	 *
+	 * @param field		The field to split
+	 * @param delimiter	An ASCII character
+	 * @return The number of parts the field was split into
+	 */
+	public int splitField(int field, char delimiter) {
+		checkField(field);
+		int tail = fields - field - 1;
+		int[] tailStarts = new int[tail];
+		int[] tailEnds = new int[tail];
+		System.arraycopy(starts, field + 1, tailStarts, 0, tail);
+		System.arraycopy(ends, field + 1, tailEnds, 0, tail);
+		int start = starts[field];
+		int end = ends[field];
+		fields = field;
+		addFields(start, end, delimiter, false);
+		int parts = fields - field;
+		for (int i = 0; i < tail; i++) addField(tailStarts[i], tailEnds[i]);
+		return parts;
+	}
+
+	private void addFields(int start, int end, char delimiter, boolean whitespace) {
+		int first = fields;
+		int fieldStart = start;
+		for (int i = start; i < end; i++) {
+			byte b = bytes[i];
+			if (whitespace ? isWhitespace(b) : b == delimiter) {
+				addField(fieldStart, i);
+				fieldStart = i + 1;
+			}
+		}
+		if (fields == first) {
+			addField(start, end);
+			return;
+		}
+		addField(fieldStart, end);
+		while (fields > first && starts[fields - 1] == ends[fields - 1]) fields--;
+	}
+
+	private void addField(int start, int end) {
+		if (fields == starts.length) {
+			int[] grownStarts = new int[fields * 2];
+			int[] grownEnds = new int[fields * 2];
+			System.arraycopy(starts, 0, grownStarts, 0, fields);
+			System.arraycopy(ends, 0, grownEnds, 0, fields);
+			starts = grownStarts;
+			ends = grownEnds;
+		}
+		starts[fields] = start;
+		ends[fields] = end;
+		fields++;
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+	}
+
+	/**
+	 * Gets the number of fields the current line was split into.
+	 */
+	public int fieldCount() {
+		return fields;
+	}
+
+	/**
+	 * Gets the length of a field in bytes.
+	 */
+	public int fieldLength(int field) {
+		checkField(field);
+		return ends[field] - starts[field];
+	}
+
+	/**
+	 * Gets a byte of a field.
+	 */
+	public byte fieldByte(int field, int index) {
+		checkField(field);
+		return bytes[starts[field] + index];
+	}
+
+	/**
+	 * Gets a field as characters without decoding it.  ASCII fields such as type names are read in place, through a view
+	 * that is reused by the next call and only valid until the line changes.  Fields with any other characters are decoded.
+	 */
+	public CharSequence view(int field) {
+		checkField(field);
+		return view(field, 0, ends[field] - starts[field]);
+	}
+
+	/**
+	 * Gets a view of part of a field, like {@link #view(int)}.
+	 *
+	 * @param field	The field
+	 * @param from	The first byte of the field to include
+	 * @param to	The byte of the field to stop at
+	 */
+	public CharSequence view(int field, int from, int to) {
+		checkField(field);
+		if (from < 0 || from > to || to > ends[field] - starts[field]) throw new IndexOutOfBoundsException("Range " + from + " to " + to + " out of range for field " + field);
+		int start = starts[field] + from;
+		int end = starts[field] + to;
+		for (int i = start; i < end; i++) {
+			// Each byte is only a character of its own in ASCII
+			if (bytes[i] < 0) return new String(bytes, start, end - start, UTF8);
+		}
+		view.start = start;
+		view.end = end;
+		return view;
+	}
+
+	/**
+	 * Decodes a field.
+	 */
+	public String field(int field) {
+		return startText().appendField(field).finishText();
+	}
+
+	/**
+	 * Decodes a field, replacing a character as it goes.
+	 */
+	public String field(int field, char from, char to) {
+		return startText().appendField(field, from, to).finishText();
+	}
+
+	/**
+	 * Starts building a string out of several fields in a buffer owned by this tokenizer.
+	 * Call {@link #finishText()} to get the result.
+	 */
+	public LineTokenizer startText() {
+		textLength = 0;
+		return this;
+	}
+
+	/**
+	 * Appends a decoded field to the text being built.
+	 */
+	public LineTokenizer appendField(int field) {
+		checkField(field);
+		decode(starts[field], ends[field], '\0', '\0');
+		return this;
+	}
+
+	/**
+	 * Appends a decoded field to the text being built, replacing a character as it goes.
+	 */
+	public LineTokenizer appendField(int field, char from, char to) {
+		checkField(field);
+		decode(starts[field], ends[field], from, to);
+		return this;
+	}
+
+	/**
+	 * Appends a single character to the text being built.
+	 */
+	public LineTokenizer appendChar(char c) {
+		ensureText(1);
+		text[textLength++] = c;
+		return this;
+	}
+
+	/**
+	 * Gets the text built since the last call to {@link #startText()}.
+	 */
+	public String finishText() {
+		return new String(text, 0, textLength);
+	}
+
+	private void decode(int start, int end, char from, char to) {
+		ensureText(end - start);
+		char[] text = this.text;
+		int length = textLength;
+		int i = start;
+		while (i < end) {
+			int b = bytes[i];
+			if (b >= 0) {
+				char c = (char)b;
+				text[length++] = c == from ? to : c;
+				i++;
+				continue;
+			}
+			int codePoint;
+			int size;
+			if ((b & 0xE0) == 0xC0) {
+				codePoint = b & 0x1F;
+				size = 2;
+			} else if ((b & 0xF0) == 0xE0) {
+				codePoint = b & 0x0F;
+				size = 3;
+			} else if ((b & 0xF8) == 0xF0) {
+				codePoint = b & 0x07;
+				size = 4;
+			} else {
+				codePoint = 0xFFFD;
+				size = 1;
+			}
+			if (size > 1) {
+				if (i + size > end) {
+					codePoint = 0xFFFD;
+					size = end - i;
+				} else {
+					for (int j = 1; j < size; j++) {
+						int next = bytes[i + j];
+						if ((next & 0xC0) != 0x80) {
+							codePoint = 0xFFFD;
+							size = j;
+							break;
+						}
+						codePoint = (codePoint << 6) | (next & 0x3F);
+					}
+				}
+			}
+			i += size;
+			if (Character.isSupplementaryCodePoint(codePoint)) {
+				text[length++] = Character.highSurrogate(codePoint);
+				text[length++] = Character.lowSurrogate(codePoint);
+			} else {
+				char c = (char)codePoint;
+				text[length++] = c == from ? to : c;
+			}
+		}
+		textLength = length;
+	}
+
+	private void ensureText(int additional) {
+		if (textLength + additional > text.length) {
+			char[] grown = new char[Math.max(text.length * 2, textLength + additional)];
+			System.arraycopy(text, 0, grown, 0, textLength);
+			text = grown;
+		}
+	}
+
+	private void checkField(int field) {
+		if (field < 0 || field >= fields) throw new IndexOutOfBoundsException("Field " + field + " out of range for " + fields + " fields");
+	}
+
+	/**
+	 * An ASCII range of the current line.
+	 */
+	private final class FieldView implements CharSequence {
+		private int start;
+		private int end;
+
+		public int length() {
+			return end - start;
+		}
+
+		public char charAt(int index) {
+			return (char)bytes[start + index];
+		}
+
+		public CharSequence subSequence(int start, int end) {
+			return toString().substring(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return new String(bytes, start, end - start, UTF8);
+		}
+	}
+}
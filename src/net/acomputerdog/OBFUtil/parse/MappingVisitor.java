@@ -0,0 +1,94 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import java.io.IOException;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+import net.acomputerdog.OBFUtil.table.EntryVisitor;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+
+/**
+ * Receives mappings from a parser as they are read, without a table in between.
+ * See {@link FileParser#visitEntries(java.io.File, MappingVisitor)}.
+ * <p>
+ * Every entry arrives at {@link #visit(TargetType, String, String, String)}, which hands it to the callback for its type.
+ * Subclasses override either that method or just the callbacks they are interested in, everything else is ignored.
+ * Formats without searge names pass the deobfuscated name as searge name.
+ * <p>
+ * Parsers call {@link #visitEnd()} once the whole input has been read.
+ */
+public abstract class MappingVisitor {
+
+	/**
+	 * Called once for every entry.
+	 *
+	 * @param type	The type of the entry
+	 * @param obf	The obfuscated name
+	 * @param srg	The searge name
+	 * @param deobf	The deobfuscated name
+	 */
+	public void visit(TargetType type, String obf, String srg, String deobf) throws IOException {
+		switch (type) {
+			case PACKAGE:
+				visitPackage(obf, srg, deobf);
+				break;
+			case CLASS:
+				visitClass(obf, srg, deobf);
+				break;
+			case FIELD:
+				visitField(obf, srg, deobf);
+				break;
+			case METHOD:
+				visitMethod(obf, srg, deobf);
+				break;
+			case CONSTRUCTOR:
+				visitConstructor(obf, srg, deobf);
+				break;
+		}
+	}
+
+	public void visitPackage(String obf, String srg, String deobf) throws IOException {
+	}
+
+	public void visitClass(String obf, String srg, String deobf) throws IOException {
+	}
+
+	public void visitField(String obf, String srg, String deobf) throws IOException {
+	}
+
+	public void visitMethod(String obf, String srg, String deobf) throws IOException {
+	}
+
+	public void visitConstructor(String obf, String srg, String deobf) throws IOException {
+	}
+
+	/**
+	 * Called for every access transformation found, only formats that carry them (.onf) call this.
+	 *
+	 * @param type			The type of member the transformation applies to
+	 * @param deobf			The deobfuscated name of the member, or of the class for global transformations
+	 * @param directives	The access directives, e.g. "public-f"
+	 * @param global		True if the transformation applies to every member of that type in a class
+	 */
+	public void visitAccess(TargetType type, String deobf, String directives, boolean global) throws IOException {
+	}
+
+	/**
+	 * Called once after the last entry.
+	 */
+	public void visitEnd() throws IOException {
+	}
+
+	/**
+	 * Passes every entry of a table to this visitor, type by type.  Does not call {@link #visitEnd()}.
+	 */
+	public void visitTable(OBFTable table) throws IOException {
+		for (final TargetType type : TargetType.values()) {
+			if (!table.supportsType(type)) continue;
+			table.forEach(type, new EntryVisitor<IOException>() {
+				public void visit(String obf, String srg, String deobf) throws IOException {
+					MappingVisitor.this.visit(type, obf, srg, deobf);
+				}
+			});
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package net.acomputerdog.OBFUtil.parse;
 
+import net.acomputerdog.OBFUtil.table.ColumnarOBFTableSRG;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 
 import java.io.IOException;
@@ -20,6 +21,20 @@ public interface StreamParser {
      */
     public void loadEntries(InputStream stream, OBFTable table, boolean overwrite) throws IOException;
 
+    /**
+     * Passes all entries located in a stream to a visitor as they are read.
+     * By default the stream is loaded into a temporary table, which is then passed to the visitor.
+     *
+     * @param stream    The stream to load from.
+     * @param visitor   The visitor to pass the entries to.  Its {@link MappingVisitor#visitEnd()} is called once the stream has been read.
+     */
+    public default void visitEntries(InputStream stream, MappingVisitor visitor) throws IOException {
+        OBFTable table = new ColumnarOBFTableSRG();
+        loadEntries(stream, table, true);
+        visitor.visitTable(table);
+        visitor.visitEnd();
+    }
+
     /**
      * Saves all entries located in an OBFTable into a stream.
      *
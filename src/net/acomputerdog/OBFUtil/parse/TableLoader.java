@@ -0,0 +1,44 @@
+package net.acomputerdog.OBFUtil.parse;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+import net.acomputerdog.OBFUtil.table.MappingBatch;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+
+/**
+ * A MappingVisitor that loads entries into a table.
+ * <p>
+ * Entries are collected in a batch and added in one go when the visit ends, so the table can size itself for all of them up front.
+ */
+public class TableLoader extends MappingVisitor {
+	private final OBFTable table;
+	private final boolean overwrite;
+	private final MappingBatch batch = new MappingBatch();
+
+	/**
+	 * @param table		The table to write to.
+	 * @param overwrite	If true overwrite existing mappings.
+	 */
+	public TableLoader(OBFTable table, boolean overwrite) {
+		this.table = table;
+		this.overwrite = overwrite;
+	}
+
+	public OBFTable getTable() {
+		return table;
+	}
+
+	@Override
+	public void visit(TargetType type, String obf, String srg, String deobf) {
+		batch.addTypeSRG(obf, srg, deobf, type);
+	}
+
+	/**
+	 * Adds the entries collected so far to the table.
+	 */
+	@Override
+	public void visitEnd() {
+		if (batch.isEmpty()) return;
+		table.addAll(batch, overwrite);
+		batch.clear();
+	}
+}
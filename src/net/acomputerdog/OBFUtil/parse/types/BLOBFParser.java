@@ -2,14 +2,14 @@ package net.acomputerdog.OBFUtil.parse.types;
 
 import net.acomputerdog.OBFUtil.map.TargetType;
 import net.acomputerdog.OBFUtil.parse.FormatException;
-import net.acomputerdog.OBFUtil.table.DirectOBFTableSRG;
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.parse.MappingVisitor;
+import net.acomputerdog.OBFUtil.table.EntryVisitor;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 import net.acomputerdog.OBFUtil.table.OBFTableSRG;
 
 import java.io.*;
 
-import com.blazeloader.util.regex.Patterns;
-
 /**
  * BlazeLoader OBFuscation file.
  * Formatted "<TYPE>:<OBF>:<SEARGE>:<MCP>"  for packages, classes, and fields.
@@ -27,85 +27,60 @@ public class BLOBFParser extends OBFParser {
         this.stripDescs = stripMethodDescriptors;
     }
     
-	@SuppressWarnings("rawtypes")
 	@Override
-	protected void parseFile(BufferedReader reader, OBFTable table, boolean overwrite) throws IOException {
-		boolean handleSrg = table instanceof DirectOBFTableSRG;
-		int line = 0;
-        String str;
-    	while ((str = reader.readLine()) != null) {
-            line++;
-            if (isCommentLine(str)) {
+	protected void parseFile(LineTokenizer tokens, MappingVisitor visitor) throws IOException {
+    	while (tokens.nextLine()) {
+            if (isCommentLine(tokens)) {
                 continue;
             }
-            String[] parts = str.split(Patterns.COLON);
-            if (parts.length < 4) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
+            if (tokens.split(':') < 4) {
+                throw new FormatException("Format error on line " + tokens.getLineNumber() + ": \"" + tokens.line() + "\"");
             }
-            TargetType type = TargetType.valueOf(parts[0]);
+            TargetType type = TargetType.getTypeByName(tokens.view(0));
             if (type == null) {
-                throw new FormatException("Illegal target type on line " + line + ": \"" + parts[0] + "\"");
-            }
-            if (handleSrg) {
-            	parseStringArraySRG(line, str, parts, type, (DirectOBFTableSRG)table, overwrite);
-            } else {
-            	parseStringArrayNormal(line, str, parts, type, (DirectOBFTableSRG)table, overwrite);
+                throw new FormatException("Illegal target type on line " + tokens.getLineNumber() + ": \"" + tokens.field(0) + "\"");
             }
+            parseFields(tokens, type, visitor);
         }
 	}
 	
-    @SuppressWarnings("rawtypes")
-	protected void parseStringArraySRG(int line, String str, String[] parts, TargetType type, DirectOBFTableSRG table, boolean overwrite) throws FormatException, IOException {
+    protected void parseFields(LineTokenizer tokens, TargetType type, MappingVisitor visitor) throws IOException {
     	if (type == TargetType.METHOD) {
-            if (parts.length < 7) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
+            if (tokens.fieldCount() < 7) {
+                throw new FormatException("Format error on line " + tokens.getLineNumber() + ": \"" + tokens.line() + "\"");
             }
-            if (overwrite || !table.hasObf(parts[1], type)) {
-                if (stripDescs) {
-                    table.addTypeSRG(parts[1], parts[3], parts[5], type);
-                } else {
-                    table.addTypeSRG(parts[1] + " " + parts[2], parts[3] + " " + parts[4], parts[5] + " " + parts[6], type);
-                }
+            if (stripDescs) {
+                visitor.visit(type, tokens.field(1), tokens.field(3), tokens.field(5));
+            } else {
+                visitor.visit(type, joinDescriptor(tokens, 1), joinDescriptor(tokens, 3), joinDescriptor(tokens, 5));
             }
         } else {
-            if (overwrite || !table.hasObf(parts[1], type)) {
-                table.addTypeSRG(parts[1], parts[2], parts[3], type);
-            }
+            visitor.visit(type, tokens.field(1), tokens.field(2), tokens.field(3));
         }
     }
-
-    protected void parseStringArrayNormal(int line, String str, String[] parts, TargetType type, OBFTable table, boolean overwrite) throws FormatException, IOException {
-        if (type == TargetType.METHOD) {
-            if (parts.length < 7) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
-            }
-            if (overwrite || !table.hasObf(parts[1], type)) {
-                table.addType(parts[1] + " " + parts[2], parts[5] + " " + parts[6], type);
-            }
-        } else {
-            if (overwrite || !table.hasObf(parts[1], type)) {
-                table.addType(parts[1], parts[3], type);
-            }
-        }
+    
+    private String joinDescriptor(LineTokenizer tokens, int name) {
+    	return tokens.startText().appendField(name).appendChar(' ').appendField(name + 1).finishText();
     }
 
-    protected void writeTable(Writer out, OBFTable table) throws IOException {
+    protected void writeTable(final Writer out, OBFTable table) throws IOException {
         if (table instanceof OBFTableSRG) {
-        	for (TargetType type : TargetType.values()) {
+        	for (final TargetType type : TargetType.values()) {
         		if (!table.supportsType(type)) continue;
-                for (String obf : table.getAllObf(type)) {
-            		writeEntry(out, obf, type, (OBFTableSRG) table);
-                }
+        		table.forEach(type, new EntryVisitor<IOException>() {
+        			public void visit(String obf, String srg, String deobf) throws IOException {
+        				writeEntry(out, type, obf, srg, deobf);
+        			}
+        		});
         	}
         } else {
             super.writeTable(out, table);
         }
     }
     
-    protected void writeEntry(Writer out, String obf, TargetType type, OBFTable table) throws IOException {
+    protected void writeEntry(Writer out, TargetType type, String obf, String deobf) throws IOException {
     	out.write(type.name());
         out.write(":");
-        String deobf = table.deobf(obf, type);
         if (type == TargetType.METHOD) {
             obf = separateDescriptor(obf);
             deobf = separateDescriptor(deobf);
@@ -116,11 +91,9 @@ public class BLOBFParser extends OBFParser {
         out.write("\n");
     }
     
-    protected void writeEntry(Writer out, String obf, TargetType type, OBFTableSRG table) throws IOException {
+    protected void writeEntry(Writer out, TargetType type, String obf, String srg, String deobf) throws IOException {
         out.write(type.name());
         out.write(":");
-        String srg = table.getSRGFromObf(obf, type);
-        String deobf = table.deobf(obf, type);
         if (type == TargetType.METHOD) {
             obf = separateDescriptor(obf);
             srg = separateDescriptor(srg);
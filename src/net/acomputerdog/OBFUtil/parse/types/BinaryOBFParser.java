@@ -0,0 +1,69 @@
+package net.acomputerdog.OBFUtil.parse.types;
+
+import net.acomputerdog.OBFUtil.parse.FileParser;
+import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.MappingVisitor;
+import net.acomputerdog.OBFUtil.parse.StreamParser;
+import net.acomputerdog.OBFUtil.table.MappedOBFTable;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes obfuscation mappings to the compact binary format described in {@link MappedOBFTable}.
+ * <p>
+ * Loading into a table copies every entry.  Use {@link MappedOBFTable#open(File)} to serve lookups straight from the file instead.
+ */
+public class BinaryOBFParser extends FileParser implements StreamParser {
+
+    @Override
+    public void loadEntries(File file, OBFTable table, boolean overwrite) throws IOException {
+        if (file == null) throw new IllegalArgumentException("File must not be null!");
+        MappedOBFTable.open(file).writeToTable(table, overwrite);
+    }
+
+    @Override
+    public void visitEntries(File file, MappingVisitor visitor) throws IOException {
+        if (file == null) throw new IllegalArgumentException("File must not be null!");
+        visitor.visitTable(MappedOBFTable.open(file));
+        visitor.visitEnd();
+    }
+
+    @Override
+    public void loadEntries(InputStream stream, OBFTable table, boolean overwrite) throws IOException {
+        if (stream == null) throw new NullPointerException("Stream cannot be null!");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) bytes.write(buffer, 0, read);
+            MappedOBFTable.wrap(ByteBuffer.wrap(bytes.toByteArray())).writeToTable(table, overwrite);
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Override
+    protected void parseFile(BufferedReader reader, OBFTable table, boolean overwrite) throws IOException {
+        throw new FormatException("Binary mappings cannot be read from a character stream");
+    }
+
+    @Override
+    public void storeEntries(File file, OBFTable table) throws IOException {
+        if (file == null) throw new IllegalArgumentException("File must not be null!");
+        storeEntries(new FileOutputStream(file), table);
+    }
+
+    @Override
+    public void storeEntries(OutputStream stream, OBFTable table) throws IOException {
+        if (stream == null) throw new NullPointerException("Stream cannot be null!");
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(stream);
+            MappedOBFTable.write(table, out);
+        } finally {
+            if (out != null) out.close();
+        }
+    }
+}
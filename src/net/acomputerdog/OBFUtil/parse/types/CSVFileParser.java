@@ -1,6 +1,13 @@
 package net.acomputerdog.OBFUtil.parse.types;
 
+import net.acomputerdog.OBFUtil.map.TargetType;
 import net.acomputerdog.OBFUtil.parse.FileParser;
+import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.parse.MappingVisitor;
+import net.acomputerdog.OBFUtil.parse.TableLoader;
+import net.acomputerdog.OBFUtil.table.ColumnarOBFTableSRG;
+import net.acomputerdog.OBFUtil.table.MappingBatch;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 
 import java.io.*;
@@ -9,14 +16,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import com.blazeloader.util.regex.Patterns;
-
 /**
  * Reads and writes obfuscation mappings to a .csv file.  Due to variations in CSV formats, this class is abstract so that subclasses can identify the correct data to read.
  */
 public abstract class CSVFileParser extends FileParser {
 	
-	private CSVFile csv;
+	private File source;
 	
     /**
      * Loads all entries located in a File into an OBFTable.
@@ -27,43 +32,127 @@ public abstract class CSVFileParser extends FileParser {
      */
     @Override
     public void loadEntries(File file, OBFTable table, boolean overwrite) throws IOException {
-    	csv = new CSVFile();
-        super.loadEntries(file, table, overwrite);
-        writeCSVToTable(file, csv, table);
-        csv = null;
+    	source = file;
+    	try {
+    		super.loadEntries(file, table, overwrite);
+    	} finally {
+    		source = null;
+    	}
+    }
+    
+    @Override
+    public void visitEntries(File file, MappingVisitor visitor) throws IOException {
+    	source = file;
+    	try {
+    		super.visitEntries(file, visitor);
+    	} finally {
+    		source = null;
+    	}
     }
     
     @Override
     protected void parseFile(BufferedReader reader, OBFTable table, boolean overwrite) throws IOException {
-    	int lineNum = 0;
-        String[] categories = new String[0];
-        String line;
-    	while ((line = reader.readLine()) != null) {
-            if (!isLineEmpty(line)) {
-                String[] items = line.split(Patterns.COMMA);
-                if (lineNum == 0) {
-                    categories = items;
-                    lineNum = 0;
-                } else {
-                    int itemNum = 0;
-                    for (String item : items) {
-                        if (itemNum < categories.length) {
-                            csv.addItem(categories[itemNum], item);
-                            itemNum++;
-                        } else {
-                            String newItem = csv.getItem(categories[itemNum - 1], csv.size() - 1) + "," + (item);
-                            csv.setItem(categories[itemNum - 1], csv.size() - 1, newItem);
-                        }
-                    }
-                    while (itemNum < categories.length) {
-                        csv.addItem(categories[itemNum], "");
-                        itemNum++;
-                    }
+    	parseFile(LineTokenizer.read(reader), table, overwrite);
+    }
+    
+    @Override
+    protected void parseFile(LineTokenizer tokens, OBFTable table, boolean overwrite) throws IOException {
+    	TableLoader loader = new TableLoader(table, overwrite);
+    	parseRows(tokens, loader, table);
+    	loader.visitEnd();
+    }
+    
+    @Override
+    protected void parseFile(LineTokenizer tokens, MappingVisitor visitor) throws IOException {
+    	parseRows(tokens, visitor, null);
+    }
+    
+    /**
+     * Streams the rows of a file to a visitor, or collects them into a CSVFile if this parser does not stream.
+     *
+     * @param table	The table collected files are written to, or null to write them to a temporary table that is passed to the visitor.
+     */
+    private void parseRows(LineTokenizer tokens, MappingVisitor visitor, OBFTable table) throws IOException {
+    	Row row = new Row(tokens);
+    	if (!row.next()) {
+    		writeCSV(new CSVFile(), visitor, table);
+    		return;
+    	}
+    	String[] categories = row.toArray();
+    	if (readHeader(source, categories)) {
+    		while (row.next()) {
+    			readRow(source, row, visitor);
+    		}
+    		return;
+    	}
+    	CSVFile csv = new CSVFile();
+    	while (row.next()) {
+    		int itemNum = 0;
+    		for (; itemNum < row.size(); itemNum++) {
+    			if (itemNum < categories.length) {
+    				csv.addItem(categories[itemNum], row.get(itemNum));
+    			} else {
+    				// Cells past the header belong to the last column, as in files that leave commas in descriptions unquoted
+    				String newItem = csv.getItem(categories[categories.length - 1], csv.size() - 1) + "," + row.get(itemNum);
+    				csv.setItem(categories[categories.length - 1], csv.size() - 1, newItem);
+    			}
+    		}
+    		while (itemNum < categories.length) {
+    			csv.addItem(categories[itemNum], "");
+    			itemNum++;
+    		}
+    	}
+    	writeCSV(csv, visitor, table);
+    }
+    
+    private void writeCSV(CSVFile csv, MappingVisitor visitor, OBFTable table) throws IOException {
+    	if (table != null) {
+    		writeCSVToTable(source, csv, table);
+    	} else {
+    		table = new ColumnarOBFTableSRG();
+    		writeCSVToTable(source, csv, table);
+    		visitor.visitTable(table);
+    	}
+    }
+    
+    /**
+     * Reads the header of a file.  Parsers that can handle rows one at a time return true to have every row passed to
+     * {@link #readRow(File, Row, MappingVisitor)} as it is parsed, instead of collecting the whole file in a CSVFile for {@link #writeCSVToTable(File, CSVFile, OBFTable)}.
+     * <p>
+     * Streaming parsers should find their columns in the header here, so rows can be read by index.
+     *
+     * @param source		The file being read, or null when reading from a stream.
+     * @param categories	The names of the columns.
+     * @return True to stream the rows of this file, false to collect them.  False by default.
+     */
+    protected boolean readHeader(File source, String[] categories) throws IOException {
+    	return false;
+    }
+    
+    /**
+     * Reads a single row when streaming.  The row is only valid until this method returns.
+     *
+     * @param source	The file being read, or null when reading from a stream.
+     * @param row		The row to read.
+     * @param visitor	The visitor to pass entries to.
+     */
+    protected void readRow(File source, Row row, MappingVisitor visitor) throws IOException {
+    }
 
-                }
-                lineNum++;
-            }
-        }
+    /**
+     * Reads a single row into a batch, by passing the entries of {@link #readRow(File, Row, MappingVisitor)} to it.
+     *
+     * @param source	The file being read, or null when reading from a stream.
+     * @param row		The row to read.
+     * @param batch		The batch to add entries to.
+     */
+    protected void readRow(File source, Row row, final MappingBatch batch) throws IOException {
+    	readRow(source, row, new MappingVisitor() {
+    		@Override
+    		public void visit(TargetType type, String obf, String srg, String deobf) {
+    			batch.addTypeSRG(obf, srg, deobf, type);
+    		}
+    	});
     }
 
     /**
@@ -92,25 +181,6 @@ public abstract class CSVFileParser extends FileParser {
         }
     }
 
-    private boolean isLineEmpty(String line) {
-        if (line.isEmpty()) {
-            return true;
-        } else {
-            line = line.trim();
-            char[] chars = line.toCharArray();
-            if (chars[0] == ',') {
-                return true;
-            }
-            for (char chr : chars) {
-                if (chr != ',' && !Character.isWhitespace(chr)) {
-                    return false;
-                }
-            }
-            return true;
-        }
-    }
-    
-
     /**
      * Writes the data in a CSVFile to an OBFTable
      *
@@ -210,11 +280,174 @@ public abstract class CSVFileParser extends FileParser {
 
         private void mergeArray(String[] strings, StringBuilder builder) {
             for (int index = 0; index < strings.length; index++) {
-                builder.append(strings[index]);
+                appendItem(strings[index], builder);
                 if (index < strings.length - 1) {
                     builder.append(",");
                 }
             }
         }
+
+        private void appendItem(String item, StringBuilder builder) {
+            if (item.indexOf(',') < 0 && item.indexOf('"') < 0 && item.indexOf('\n') < 0 && item.indexOf('\r') < 0) {
+                builder.append(item);
+                return;
+            }
+            builder.append('"');
+            for (int i = 0; i < item.length(); i++) {
+                char c = item.charAt(i);
+                if (c == '"') builder.append('"');
+                builder.append(c);
+            }
+            builder.append('"');
+        }
+    }
+    
+    /**
+     * A single row of a CSV file.
+     * <p>
+     * Rows without quotes are split in place by the tokenizer, so cells are only decoded when they are asked for.
+     * Rows with quotes are decoded and split by the usual rules: a cell starting with a quote runs to the next lone quote,
+     * may contain commas and line breaks, and uses two quotes for one.
+     * Lines that are blank, start with a comma or hold nothing but commas are skipped.
+     */
+    public static final class Row {
+    	private final LineTokenizer tokens;
+    	private final List<String> cells = new ArrayList<String>();
+    	private final StringBuilder cell = new StringBuilder();
+    	private boolean quoted;
+    	private int line;
+    	
+    	private Row(LineTokenizer tokens) {
+    		this.tokens = tokens;
+    	}
+    	
+    	private boolean next() throws FormatException {
+    		while (tokens.nextLine()) {
+    			if (isLineEmpty()) continue;
+    			line = tokens.getLineNumber();
+    			quoted = hasQuote();
+    			if (quoted) {
+    				parseQuoted();
+    			} else {
+    				tokens.split(',');
+    			}
+    			return true;
+    		}
+    		return false;
+    	}
+    	
+    	private boolean isLineEmpty() {
+    		int start = tokens.indent();
+    		if (start == tokens.length() || tokens.byteAt(start) == ',') return true;
+    		for (int i = start; i < tokens.length(); i++) {
+    			byte b = tokens.byteAt(i);
+    			if (b != ',' && (b & 0xFF) > ' ') return false;
+    		}
+    		return true;
+    	}
+    	
+    	private boolean hasQuote() {
+    		for (int i = 0; i < tokens.length(); i++) {
+    			if (tokens.byteAt(i) == '"') return true;
+    		}
+    		return false;
+    	}
+    	
+    	private void parseQuoted() throws FormatException {
+    		cells.clear();
+    		cell.setLength(0);
+    		String text = tokens.line();
+    		int i = 0;
+    		boolean inQuotes = false;
+    		boolean cellStart = true;
+    		while (true) {
+    			if (i == text.length()) {
+    				if (!inQuotes) break;
+    				if (!tokens.nextLine()) throw new FormatException("Unterminated quoted cell starting on line " + line);
+    				// The line break is part of the quoted cell
+    				cell.append('\n');
+    				text = tokens.line();
+    				i = 0;
+    				continue;
+    			}
+    			char c = text.charAt(i++);
+    			if (inQuotes) {
+    				if (c != '"') {
+    					cell.append(c);
+    				} else if (i < text.length() && text.charAt(i) == '"') {
+    					cell.append('"');
+    					i++;
+    				} else {
+    					inQuotes = false;
+    				}
+    			} else if (c == ',') {
+    				cells.add(cell.toString());
+    				cell.setLength(0);
+    				cellStart = true;
+    				continue;
+    			} else if (c == '"' && cellStart) {
+    				inQuotes = true;
+    			} else {
+    				cell.append(c);
+    			}
+    			cellStart = false;
+    		}
+    		cells.add(cell.toString());
+    		while (!cells.isEmpty() && cells.get(cells.size() - 1).isEmpty()) cells.remove(cells.size() - 1);
+    	}
+    	
+    	/**
+    	 * Gets the line this row starts on.
+    	 */
+    	public int getLine() {
+    		return line;
+    	}
+    	
+    	/**
+    	 * Gets the number of cells in this row.  Trailing empty cells are not counted.
+    	 */
+    	public int size() {
+    		return quoted ? cells.size() : tokens.fieldCount();
+    	}
+    	
+    	/**
+    	 * Gets a cell, or an empty string if the row is shorter.
+    	 */
+    	public String get(int column) {
+    		if (column >= size()) return "";
+    		return quoted ? cells.get(column) : tokens.field(column);
+    	}
+    	
+    	/**
+    	 * Reads a cell as a decimal integer without decoding it.
+    	 *
+    	 * @throws FormatException if the cell is not a number.
+    	 */
+    	public int getInt(int column) throws FormatException {
+    		CharSequence text = column >= size() ? "" : quoted ? cells.get(column) : tokens.view(column);
+    		int length = text.length();
+    		boolean negative = length > 1 && text.charAt(0) == '-';
+    		int value = 0;
+    		for (int i = negative ? 1 : 0; i < length; i++) {
+    			int digit = text.charAt(i) - '0';
+    			if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10) {
+    				throw new FormatException("Not a number in column " + column + " on line " + line + ": \"" + text + "\"");
+    			}
+    			value = value * 10 + digit;
+    		}
+    		if (length == 0) throw new FormatException("Not a number in column " + column + " on line " + line + ": \"\"");
+    		return negative ? -value : value;
+    	}
+    	
+    	/**
+    	 * Copies every cell of this row into an array.
+    	 */
+    	public String[] toArray() {
+    		String[] row = new String[size()];
+    		for (int i = 0; i < row.length; i++) {
+    			row[i] = get(i);
+    		}
+    		return row;
+    	}
     }
 }
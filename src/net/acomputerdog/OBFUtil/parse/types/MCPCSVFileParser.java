@@ -2,7 +2,10 @@ package net.acomputerdog.OBFUtil.parse.types;
 
 import net.acomputerdog.OBFUtil.map.TargetType;
 import net.acomputerdog.OBFUtil.parse.FileParser;
-import net.acomputerdog.OBFUtil.table.DirectOBFTable;
+import net.acomputerdog.OBFUtil.parse.MappingVisitor;
+import net.acomputerdog.OBFUtil.table.ColumnarOBFTable;
+import net.acomputerdog.OBFUtil.table.EntryVisitor;
+import net.acomputerdog.OBFUtil.table.MappingBatch;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 
 import java.io.File;
@@ -10,6 +13,8 @@ import java.io.IOException;
 
 /**
  * Reads and writes obfuscation mappings to an MCP format .csv file.  MCP format is searge,name,side,desc as categories.
+ * <p>
+ * Rows are read straight into the table as they are parsed.  Columns are found by their name in the header, files without those names are read by position.
  */
 public class MCPCSVFileParser extends CSVFileParser {
     private static final int OBFNAME_INDEX = 0;
@@ -19,6 +24,10 @@ public class MCPCSVFileParser extends CSVFileParser {
 
     private final TargetType type;
     private final Side side;
+    
+    private int obfColumn;
+    private int deobfColumn;
+    private int sideColumn;
 
     public MCPCSVFileParser(TargetType type) {
         this(type, Side.NONE);
@@ -29,6 +38,29 @@ public class MCPCSVFileParser extends CSVFileParser {
         this.side = side;
     }
 
+    @Override
+    protected boolean readHeader(File source, String[] categories) {
+    	obfColumn = indexOf(categories, "searge", OBFNAME_INDEX);
+    	deobfColumn = indexOf(categories, "name", DEOBFNAME_INDEX);
+    	sideColumn = indexOf(categories, "side", SIDE_INDEX);
+    	return true;
+    }
+    
+    @Override
+    protected void readRow(File source, Row row, MappingVisitor visitor) throws IOException {
+    	if (side == Side.NONE || Side.valueOf(row.getInt(sideColumn)).equals(side)) {
+    		String deobf = row.get(deobfColumn);
+    		visitor.visit(type, row.get(obfColumn), deobf, deobf);
+    	}
+    }
+    
+    private static int indexOf(String[] categories, String name, int fallback) {
+    	for (int i = 0; i < categories.length; i++) {
+    		if (categories[i].trim().equalsIgnoreCase(name)) return i;
+    	}
+    	return fallback;
+    }
+
     /**
      * Writes the data in a CSVFile to an OBFTable
      *
@@ -38,12 +70,15 @@ public class MCPCSVFileParser extends CSVFileParser {
      */
     @Override
     public void writeCSVToTable(File source, CSVFile csv, OBFTable table) {
+        MappingBatch batch = new MappingBatch();
+        batch.ensureCapacity(type, csv.size());
         for (int rowNum = 0; rowNum < csv.size(); rowNum++) {
             String[] row = csv.getRow(rowNum);
             if (side == Side.NONE || Side.fromStringIndex(row[SIDE_INDEX]).equals(side)) {
-                table.addType(row[OBFNAME_INDEX], row[DEOBFNAME_INDEX], type);
+                batch.addType(row[OBFNAME_INDEX], row[DEOBFNAME_INDEX], type);
             }
         }
+        table.addAll(batch, true);
     }
 
     /**
@@ -55,15 +90,16 @@ public class MCPCSVFileParser extends CSVFileParser {
      */
     @Override
     public CSVFile readCSVFromTable(File source, OBFTable table) {
-        CSVFile csv = new CSVFile();
-
-        String[] obfs = table.getAllObf(type);
-        for (String obf : obfs) {
-            csv.addItem("searge", obf);
-            csv.addItem("name", table.deobf(obf, type));
-            csv.addItem("side", side.side + "");
-            csv.addItem("desc", "");
-        }
+        final CSVFile csv = new CSVFile();
+        final String sideName = side.side + "";
+        table.forEach(type, new EntryVisitor<RuntimeException>() {
+        	public void visit(String obf, String srg, String deobf) {
+        		csv.addItem("searge", obf);
+        		csv.addItem("name", deobf);
+        		csv.addItem("side", sideName);
+        		csv.addItem("desc", "");
+        	}
+        });
         return csv;
     }
 
@@ -78,8 +114,7 @@ public class MCPCSVFileParser extends CSVFileParser {
             System.exit(0);
         }
         FileParser parser = new MCPCSVFileParser(getTypeOfFile(csvFile), Side.CLIENT);
-        @SuppressWarnings("rawtypes")
-		OBFTable table = new DirectOBFTable();
+        OBFTable table = new ColumnarOBFTable();
         try {
             parser.loadEntries(csvFile, table, true);
         } catch (IOException e) {
@@ -90,9 +125,11 @@ public class MCPCSVFileParser extends CSVFileParser {
         for (TargetType i : TargetType.parsable()) {
         	if (!table.supportsType(i)) continue;
         	System.out.println(i.name() + ":");
-        	for (String str : table.getAllObf(i)) {
-                System.out.println("   " + str + " = " + table.deobf(str, i));
-            }
+        	table.forEach(i, new EntryVisitor<RuntimeException>() {
+        		public void visit(String obf, String srg, String deobf) {
+        			System.out.println("   " + obf + " = " + deobf);
+        		}
+        	});
         }
     }
 
@@ -3,13 +3,15 @@ package net.acomputerdog.OBFUtil.parse.types;
 import net.acomputerdog.OBFUtil.map.TargetType;
 import net.acomputerdog.OBFUtil.parse.FileParser;
 import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.parse.MappingVisitor;
 import net.acomputerdog.OBFUtil.parse.StreamParser;
+import net.acomputerdog.OBFUtil.parse.TableLoader;
+import net.acomputerdog.OBFUtil.table.EntryVisitor;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 
 import java.io.*;
 
-import com.blazeloader.util.regex.Patterns;
-
 /**
  * Reads and write obfuscation mappings to a .obf file.
  * General format is:
@@ -18,6 +20,10 @@ import com.blazeloader.util.regex.Patterns;
  *   <TYPE>:<OBF>=<DEOBF>
  */
 public class OBFParser extends FileParser implements StreamParser {
+	/**
+	 * True if a subclass overrides {@link #isCommentLine(String)}, in which case lines are decoded and passed to it.
+	 */
+	private final boolean stringComments = overridesStringComments();
 	
     @Override
     public void storeEntries(File file, OBFTable table) throws IOException {
@@ -27,15 +33,22 @@ public class OBFParser extends FileParser implements StreamParser {
     @Override
     public void loadEntries(InputStream stream, OBFTable table, boolean overwrite) throws IOException {
         if (stream == null) throw new NullPointerException("Stream cannot be null!");
-        BufferedReader in = null;
         try {
-            in = new BufferedReader(new InputStreamReader(stream));
-            parseFile(in, table, overwrite);
+            parseFile(LineTokenizer.read(stream), table, overwrite);
         } finally {
-            if (in != null) {
-                in.close();
-            }
+            stream.close();
+        }
+    }
+    
+    @Override
+    public void visitEntries(InputStream stream, MappingVisitor visitor) throws IOException {
+        if (stream == null) throw new NullPointerException("Stream cannot be null!");
+        try {
+            parseFile(LineTokenizer.read(stream), visitor);
+        } finally {
+            stream.close();
         }
+        visitor.visitEnd();
     }
     
     @Override
@@ -54,42 +67,53 @@ public class OBFParser extends FileParser implements StreamParser {
     
 	@Override
 	protected void parseFile(BufferedReader reader, OBFTable table, boolean overwrite) throws IOException {
-		int line = 0;
-    	String str;
-    	while ((str = reader.readLine()) != null) {
-            line++;
-            if (isCommentLine(str)) {
+		parseFile(LineTokenizer.read(reader), table, overwrite);
+	}
+	
+	@Override
+	protected void parseFile(LineTokenizer tokens, OBFTable table, boolean overwrite) throws IOException {
+		TableLoader loader = new TableLoader(table, overwrite);
+		parseFile(tokens, loader);
+		loader.visitEnd();
+	}
+	
+	@Override
+	protected void parseFile(LineTokenizer tokens, MappingVisitor visitor) throws IOException {
+    	while (tokens.nextLine()) {
+            if (isCommentLine(tokens)) {
                 continue;
             }
-            String[] typeParts = str.split(Patterns.COLON);
-            if (typeParts.length < 2) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
+            if (tokens.split(':') < 2) {
+                throw new FormatException("Format error on line " + tokens.getLineNumber() + ": \"" + tokens.line() + "\"");
             }
-            TargetType type = TargetType.valueOf(typeParts[0]);
+            TargetType type = TargetType.getTypeByName(tokens.view(0));
             if (type == null) {
-                throw new FormatException("Illegal target type on line " + line + ": \"" + typeParts[0] + "\"");
-            }
-            String[] obfParts = typeParts[1].split(Patterns.EQUALS);
-            if (obfParts.length < 2) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
+                throw new FormatException("Illegal target type on line " + tokens.getLineNumber() + ": \"" + tokens.field(0) + "\"");
             }
-            if (overwrite || !table.hasDeobf(obfParts[0], type)) {
-                table.addType(obfParts[0], obfParts[1], type);
+            if (tokens.splitField(1, '=') < 2) {
+                throw new FormatException("Format error on line " + tokens.getLineNumber() + ": \"" + tokens.line() + "\"");
             }
+            String deobf = tokens.field(2);
+            visitor.visit(type, tokens.field(1), deobf, deobf);
         }
     }
 
-    protected void writeTable(Writer out, OBFTable table) throws IOException {
-        for (TargetType type : TargetType.values()) {
+    protected void writeTable(final Writer out, OBFTable table) throws IOException {
+        for (final TargetType type : TargetType.values()) {
         	if (!table.supportsType(type)) continue;
-            for (String obf : table.getAllObf(type)) {
-                writeEntry(out, obf, type, table);
-            }
+        	table.forEach(type, new EntryVisitor<IOException>() {
+        		public void visit(String obf, String srg, String deobf) throws IOException {
+        			writeEntry(out, type, obf, deobf);
+        		}
+        	});
         }
     }
     
     protected void writeEntry(Writer out, String obf, TargetType type, OBFTable table) throws IOException {
-    	String deobf = table.deobf(obf, type);
+    	writeEntry(out, type, obf, table.deobf(obf, type));
+    }
+    
+    protected void writeEntry(Writer out, TargetType type, String obf, String deobf) throws IOException {
         out.write(type.name());
         out.write(":");
         out.write(obf);
@@ -98,8 +122,34 @@ public class OBFParser extends FileParser implements StreamParser {
         out.write("\n");
     }
     
+    /**
+     * Checks if a line is a comment or blank.  Subclasses may override this, lines are then decoded so it can be called for each of them.
+     */
     protected boolean isCommentLine(String str) {
         String trimmed = str.trim();
         return (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.startsWith("//"));
     }
+    
+    /**
+     * Checks if the current line of a tokenizer is a comment or blank, without decoding it unless {@link #isCommentLine(String)} is overridden.
+     */
+    protected boolean isCommentLine(LineTokenizer tokens) {
+        if (stringComments) return isCommentLine(tokens.line());
+        int start = tokens.indent();
+        if (start == tokens.length()) return true;
+        byte first = tokens.byteAt(start);
+        return first == '#' || (first == '/' && start + 1 < tokens.length() && tokens.byteAt(start + 1) == '/');
+    }
+    
+    private boolean overridesStringComments() {
+        for (Class<?> c = getClass(); c != OBFParser.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("isCommentLine", String.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Not declared here, try the superclass
+            }
+        }
+        return false;
+    }
 }
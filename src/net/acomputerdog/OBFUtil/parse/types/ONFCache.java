@@ -0,0 +1,245 @@
+package net.acomputerdog.OBFUtil.parse.types;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.MappingVisitor;
+
+/**
+ * Keeps the fully resolved result of an ONF load on disk, keyed by the contents of every file that went into it.
+ * <p>
+ * A cache file holds the name and SHA-256 digest of each contributing file followed by every entry and access transformation
+ * the load passed to its visitor, in order.  It is valid for as long as each of those files still has the same digest,
+ * checking that only reads the files, they are not parsed.
+ * <p>
+ * Cache files are written to a temporary file and moved into place, so concurrent loads of the same file never see half a cache.
+ */
+final class ONFCache {
+	private static final int MAGIC = 0x4F4E4643;
+	private static final int VERSION = 1;
+
+	private static final int ACCESS = 0x80;
+	private static final int SAME_SRG = 0x40;
+	private static final int GLOBAL = 0x20;
+	private static final int TYPE_MASK = 0x1F;
+
+	private final File directory;
+
+	ONFCache(File directory) {
+		if (directory == null) throw new IllegalArgumentException("Cache directory must not be null!");
+		this.directory = directory;
+	}
+
+	static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * Gets the cache file for a root file.  Files of the same name in different directories get different cache files.
+	 * Loads that keep existing classes resolve descriptors differently when a class is mapped twice, so they get their own file.
+	 */
+	File getFile(File root, boolean overwrite) {
+		return new File(directory, root.getName() + "." + Integer.toHexString(root.getAbsolutePath().hashCode()) + (overwrite ? "" : ".keep") + ".cache");
+	}
+
+	/**
+	 * Reads the cached load of a root file.
+	 *
+	 * @return The recorded load, or null if there is no cache or any of the files it was built from has changed.
+	 */
+	Recording read(File root, boolean overwrite) {
+		File file = getFile(root, overwrite);
+		if (!file.isFile()) return null;
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(file))));
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+			int files = in.readInt();
+			for (int i = 0; i < files; i++) {
+				String name = in.readUTF();
+				byte[] digest = new byte[in.readUnsignedByte()];
+				in.readFully(digest);
+				if (!MessageDigest.isEqual(digest, digest(new File(root.getParentFile(), name)))) return null;
+			}
+			Recording recording = new Recording(null);
+			recording.read(in);
+			return recording;
+		} catch (IOException e) {
+			// A missing, unreadable or damaged cache is just a miss
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {}
+			}
+		}
+	}
+
+	/**
+	 * Writes the cache of a root file.  Failures are ignored, the load itself has already succeeded.
+	 *
+	 * @param root		The root file of the load
+	 * @param overwrite	If the load overwrote existing classes
+	 * @param digests	The name and digest of every file read, relative to the directory of the root file
+	 * @param recording	Everything the load passed to its visitor
+	 */
+	void write(File root, boolean overwrite, Map<String, byte[]> digests, Recording recording) {
+		File file = getFile(root, overwrite);
+		File temp = null;
+		try {
+			directory.mkdirs();
+			temp = File.createTempFile(file.getName(), ".tmp", directory);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new FileOutputStream(temp))));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(digests.size());
+				for (Map.Entry<String, byte[]> i : digests.entrySet()) {
+					out.writeUTF(i.getKey());
+					out.writeByte(i.getValue().length);
+					out.write(i.getValue());
+				}
+				recording.write(out);
+			} finally {
+				out.close();
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			temp = null;
+		} catch (IOException e) {
+			// The cache is only an optimisation, the next load will try again
+		} finally {
+			if (temp != null) temp.delete();
+		}
+	}
+
+	private static byte[] digest(File file) throws IOException {
+		MessageDigest digest = newDigest();
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) digest.update(buffer, 0, read);
+		} finally {
+			in.close();
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Records the entries and access transformations passed to a visitor, forwarding them as they arrive.
+	 */
+	static final class Recording extends MappingVisitor {
+		private final MappingVisitor delegate;
+
+		private byte[] kinds = new byte[64];
+		private String[] first = new String[64];
+		private String[] second = new String[64];
+		private String[] third = new String[64];
+		private int size;
+
+		/**
+		 * @param delegate	The visitor to forward to, or null
+		 */
+		Recording(MappingVisitor delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void visit(TargetType type, String obf, String srg, String deobf) throws IOException {
+			add(type.ordinal() | (srg.equals(deobf) ? SAME_SRG : 0), obf, srg, deobf);
+			if (delegate != null) delegate.visit(type, obf, srg, deobf);
+		}
+
+		@Override
+		public void visitAccess(TargetType type, String deobf, String directives, boolean global) throws IOException {
+			add(ACCESS | type.ordinal() | (global ? GLOBAL : 0), deobf, directives, null);
+			if (delegate != null) delegate.visitAccess(type, deobf, directives, global);
+		}
+
+		@Override
+		public void visitEnd() throws IOException {
+			if (delegate != null) delegate.visitEnd();
+		}
+
+		/**
+		 * Passes everything recorded to a visitor, in the order it was recorded.  The visitor is not ended.
+		 */
+		void replay(MappingVisitor visitor) throws IOException {
+			TargetType[] types = TargetType.values();
+			for (int i = 0; i < size; i++) {
+				int kind = kinds[i];
+				TargetType type = types[kind & TYPE_MASK];
+				if ((kind & ACCESS) != 0) {
+					visitor.visitAccess(type, first[i], second[i], (kind & GLOBAL) != 0);
+				} else {
+					visitor.visit(type, first[i], second[i], third[i]);
+				}
+			}
+		}
+
+		private void add(int kind, String a, String b, String c) {
+			if (size == kinds.length) {
+				int capacity = size + (size >>> 1);
+				kinds = Arrays.copyOf(kinds, capacity);
+				first = Arrays.copyOf(first, capacity);
+				second = Arrays.copyOf(second, capacity);
+				third = Arrays.copyOf(third, capacity);
+			}
+			kinds[size] = (byte)kind;
+			first[size] = a;
+			second[size] = b;
+			third[size] = c;
+			size++;
+		}
+
+		private void write(DataOutputStream out) throws IOException {
+			out.writeInt(size);
+			for (int i = 0; i < size; i++) {
+				int kind = kinds[i];
+				out.writeByte(kind);
+				out.writeUTF(first[i]);
+				if ((kind & ACCESS) != 0 || (kind & SAME_SRG) == 0) out.writeUTF(second[i]);
+				if ((kind & ACCESS) == 0) out.writeUTF(third[i]);
+			}
+		}
+
+		private void read(DataInputStream in) throws IOException {
+			TargetType[] types = TargetType.values();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				int kind = in.readUnsignedByte();
+				if ((kind & TYPE_MASK) >= types.length) throw new FormatException("Illegal target type in cache: " + (kind & TYPE_MASK));
+				if ((kind & ACCESS) != 0) {
+					add(kind, in.readUTF(), in.readUTF(), null);
+				} else {
+					String a = in.readUTF();
+					String b = (kind & SAME_SRG) != 0 ? null : in.readUTF();
+					String c = in.readUTF();
+					add(kind, a, b == null ? c : b, c);
+				}
+			}
+		}
+	}
+}
@@ -10,17 +10,39 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.StringReader;
 import java.io.Writer;
 import java.net.URL;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.net.URLDecoder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import com.google.common.collect.Lists;
 
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
 import net.acomputerdog.OBFUtil.map.TargetType;
 import net.acomputerdog.OBFUtil.parse.FileParser;
 import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.parse.MappingVisitor;
+import net.acomputerdog.OBFUtil.parse.TableLoader;
 import net.acomputerdog.OBFUtil.parse.URLParser;
+import net.acomputerdog.OBFUtil.table.ColumnarOBFTable;
+import net.acomputerdog.OBFUtil.table.LayeredOBFTable;
+import net.acomputerdog.OBFUtil.table.MappingHierarchy;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 import net.acomputerdog.OBFUtil.table.OBFTableSRG;
 import net.acomputerdog.OBFUtil.util.Obfuscator;
@@ -30,7 +52,7 @@ import net.acomputerdog.OBFUtil.util.Obfuscator;
  * Parser for reading and writing a dense obfuscation mappings file (.onf).
  *  <p>
  *  <li>AccessTransformer directives may also be included but are not parsed.</li>
- *  <li>Other files may be side loaded using >>{file} notation.</li>
+ *  <li>Other files may be side loaded using >>{file} notation. They are read in parallel, but their entries are passed on where they are referenced.</li>
  *  <li>All srg names are given without their type prefix (field_/func_). It will be inferred from the context.</li>
  *  </p>
  *  <p>
@@ -66,15 +88,29 @@ import net.acomputerdog.OBFUtil.util.Obfuscator;
  *  </p>
  */
 public class ONFParser extends FileParser implements URLParser {
-	private final Obfuscator obfuscator = new Obfuscator();
+	private final Obfuscator obfuscator = new Obfuscator(4096);
 	
-	private String activeDirectory = null;
+	private final List<DetectedTransformation> transformations = Collections.synchronizedList(Lists.<DetectedTransformation>newArrayList());
 	
-	private final List<DetectedTransformation> transformations = Lists.newArrayList();
-	private final List<String> seenFiles = Lists.newArrayList();
+	private volatile ONFCache cache;
 	
 	/**
-	 * Gets the list of access transformations found whilst parsing onf entries.
+	 * Enables caching of resolved loads.  Loads from a file then keep their result in the given directory,
+	 * and later loads of the same file skip parsing as long as none of the files it is built from have changed.
+	 * <p>
+	 * Loads into a table that already holds entries are not cached, as their method descriptors also depend on the classes in that table.
+	 * Loads from a URL are never cached.
+	 * 
+	 * @param directory	The directory to keep cache files in, or null to disable caching
+	 */
+	public ONFParser setCacheDirectory(File directory) {
+		cache = directory == null ? null : new ONFCache(directory);
+		return this;
+	}
+	
+	/**
+	 * Gets the access transformations found by every load made through this parser.
+	 * Use the {@link Session} returned by a load to get the transformations of just that load.
 	 */
 	public List<DetectedTransformation> getDetectedTransformations() {
 		return transformations;
@@ -82,67 +118,241 @@ public class ONFParser extends FileParser implements URLParser {
 	
 	@Override
 	public void loadEntries(File file, OBFTable table, boolean overwrite) throws IOException {
-		activeDirectory = file.getParent();
-		seenFiles.add(file.getName());
-		loadEntries(new FileInputStream(file), table, overwrite);
-		activeDirectory = null;
-		seenFiles.clear();
+		load(file, table, overwrite);
 	}
 	
 	@Override
 	public void loadEntries(URL url, OBFTable table, boolean overwrite) throws IOException {
+		load(url, table, overwrite);
+	}
+	
+	@Override
+	public void visitEntries(File file, MappingVisitor visitor) throws IOException {
+		visit(file, visitor);
+	}
+	
+	/**
+	 * Passes all entries located at a URL to a visitor as they are read.
+	 * 
+	 * @param url		The URL to load from.
+	 * @param visitor	The visitor to pass the entries to.  Its {@link MappingVisitor#visitEnd()} is called once the file has been read.
+	 */
+	public void visitEntries(URL url, MappingVisitor visitor) throws IOException {
+		visit(url, visitor);
+	}
+	
+	/**
+	 * Loads a file, and the files it imports, into a table.
+	 * 
+	 * @param file		The file to load from.
+	 * @param table		The table to write to.
+	 * @param overwrite	If true overwrite existing mappings.
+	 * @return The session of this load, holding the access transformations found.
+	 */
+	public Session load(File file, OBFTable table, boolean overwrite) throws IOException {
+		TableLoader loader = new TableLoader(table, overwrite);
+		return run(file, loader, new LayeredOBFTable(table), overwrite, table.size() == 0);
+	}
+	
+	/**
+	 * Loads a file, and the files it imports, into a table.
+	 * Imports are looked up next to the file, or on the classpath if the URL points into an archive.
+	 * 
+	 * @param url		The URL to load from.
+	 * @param table		The table to write to.
+	 * @param overwrite	If true overwrite existing mappings.
+	 * @return The session of this load, holding the access transformations found.
+	 */
+	public Session load(URL url, OBFTable table, boolean overwrite) throws IOException {
+		TableLoader loader = new TableLoader(table, overwrite);
+		return visit(url, loader, new LayeredOBFTable(table), overwrite);
+	}
+	
+	/**
+	 * Passes all entries of a file, and the files it imports, to a visitor.
+	 * 
+	 * @param file		The file to load from.
+	 * @param visitor	The visitor to pass the entries to.  Its {@link MappingVisitor#visitEnd()} is called once the file has been read.
+	 * @return The session of this load, holding the access transformations found.
+	 */
+	public Session visit(File file, MappingVisitor visitor) throws IOException {
+		return run(file, visitor, new ColumnarOBFTable(), true, true);
+	}
+	
+	/**
+	 * Passes all entries located at a URL, and the files it imports, to a visitor.
+	 * 
+	 * @param url		The URL to load from.
+	 * @param visitor	The visitor to pass the entries to.  Its {@link MappingVisitor#visitEnd()} is called once the file has been read.
+	 * @return The session of this load, holding the access transformations found.
+	 */
+	public Session visit(URL url, MappingVisitor visitor) throws IOException {
+		return visit(url, visitor, new ColumnarOBFTable(), true);
+	}
+	
+	private Session visit(URL url, MappingVisitor visitor, OBFTable classes, boolean overwrite) throws IOException {
 		String path = URLDecoder.decode(url.getPath().replace("\\", "/"),"UTF-8");
-		activeDirectory = path.substring(0, path.lastIndexOf("/"));
-		seenFiles.add(path.replace(activeDirectory, ""));
-		loadEntries(url.openStream(), table, overwrite);
-		activeDirectory = null;
-		seenFiles.clear();
+		int slash = path.lastIndexOf("/");
+		Session session = new Session(path.substring(0, slash), path.substring(slash + 1), visitor, classes, overwrite);
+		run(session, url.openStream());
+		return session;
 	}
 	
-	private void loadEntries(InputStream stream, OBFTable table, boolean overwrite) throws IOException {
-        if (stream == null) throw new IllegalArgumentException("InputStream cannot be null!");
-        BufferedReader in = null;
-        try {
-            in = new BufferedReader(new InputStreamReader(stream));
-            parseFile(in, table, overwrite);
-        } catch (IOException e) {
-        	throw new IOException("Exception whilst reading file", e);
-        } catch (IllegalArgumentException e) {
-        	throw new IOException("Exception whilst reading file", e);
-        } finally {
-            if (in != null) in.close();
-        }
-    }
+	/**
+	 * Loads a file, from the cache if possible.
+	 * 
+	 * @param overwrite	If false classes already in the classes table keep their mapping
+	 * @param cacheable	If false the cache is neither read nor written
+	 */
+	private Session run(File file, MappingVisitor visitor, OBFTable classes, boolean overwrite, boolean cacheable) throws IOException {
+		ONFCache cache = cacheable ? this.cache : null;
+		if (cache == null) {
+			Session session = new Session(file.getParent(), file.getName(), visitor, classes, overwrite);
+			run(session, new FileInputStream(file));
+			return session;
+		}
+		ONFCache.Recording cached = cache.read(file, overwrite);
+		if (cached != null) {
+			final Session session = new Session(file.getParent(), file.getName(), visitor, classes, overwrite);
+			try {
+				cached.replay(new MappingVisitor() {
+					@Override
+					public void visit(TargetType type, String obf, String srg, String deobf) throws IOException {
+						session.visitor.visit(type, obf, srg, deobf);
+					}
+					
+					@Override
+					public void visitAccess(TargetType type, String deobf, String directives, boolean global) throws IOException {
+						session.addTransformation(new DetectedTransformation(directives, deobf, type, global));
+					}
+				});
+			} finally {
+				transformations.addAll(session.transformations);
+			}
+			visitor.visitEnd();
+			return session;
+		}
+		ONFCache.Recording recording = new ONFCache.Recording(visitor);
+		Session session = new Session(file.getParent(), file.getName(), recording, classes, overwrite);
+		session.digests = new LinkedHashMap<String, byte[]>();
+		run(session, new FileInputStream(file));
+		cache.write(file, overwrite, session.digests, recording);
+		return session;
+	}
+	
+	/**
+	 * Reads the root file of a session and ends its visitor.
+	 */
+	private void run(Session session, InputStream stream) throws IOException {
+		Part root = new Part(session, null);
+		if (session.fileName != null) session.parts.put(session.fileName, root);
+		try {
+			root.read(stream);
+			if (session.digests != null) session.digests.put(session.fileName, root.digest);
+			finish(session, root);
+		} finally {
+			settleImports(session);
+		}
+		session.visitor.visitEnd();
+		checkImports(session);
+	}
+	
+	/**
+	 * Passes the entries of a parsed file and everything it imports to the visitor of its session.
+	 */
+	private void finish(Session session, Part root) throws IOException {
+		try {
+			replay(session, root);
+		} finally {
+			transformations.addAll(session.transformations);
+		}
+	}
 	
 	/**
-	 * Side loads an imported file as if it were a part of this one.
+	 * Makes sure no imported file of a session is still being read, so a failed load does not leave reads running in the pool.
+	 * Imports that have not started are stopped from starting and those being read are waited for, including any they import in the meantime.
+	 */
+	private void settleImports(Session session) {
+		int seen;
+		do {
+			seen = session.parts.size();
+			for (Part part : session.parts.values()) {
+				if (part.fileName != null && !part.claimed.compareAndSet(false, true)) part.quietlyJoin();
+			}
+		} while (session.parts.size() != seen);
+	}
+	
+	/**
+	 * Throws the failures of any imported files, once everything that could be read has been passed on.
+	 */
+	private void checkImports(Session session) throws IOException {
+		if (session.errors.isEmpty()) return;
+		IOException e = new IOException(session.errors.size() + " imported file(s) could not be loaded", session.errors.get(0));
+		for (int i = 1; i < session.errors.size(); i++) {
+			e.addSuppressed(session.errors.get(i));
+		}
+		throw e;
+	}
+	
+	/**
+	 * Schedules an imported file to be read, unless another file of the session has already imported it.
 	 * <p>
-	 * Referenced files are always taken relative to the current directory.
+	 * Referenced files are always taken relative to the directory of the file the session was started with.
 	 * 
+	 * @param session	The session to load into
 	 * @param fileName	Name of file referenced
-	 * @param table		Table to read into
-	 * @param overwrite	Tru to replace existing values in the table
 	 */
-	private void handleImport(String fileName, OBFTable table, boolean overwrite) {
-    	if (seenFiles.contains(fileName)) return;
-    	InputStream input = null;
-    	try {
-    		if (activeDirectory.contains("!")) {
-        		input = ONFParser.class.getResourceAsStream(activeDirectory.split("!")[1].concat("/").concat(fileName));
-        	} else {
-        		File f = new File(activeDirectory, fileName);
-        		if (f.exists()) input = new FileInputStream(f);
-        	}
-	    	if (input != null) {
-	    		seenFiles.add(fileName);
-				loadEntries(input, table, overwrite);
-	    	} else {
-	    		throw new IllegalArgumentException("File \"" + activeDirectory.concat("/").concat(fileName) + "\" could not be opened.");
-	    	}
-    	} catch (IOException e) {
-			(new IllegalArgumentException("Exception whilst sideloading file: \"" + fileName + "\". Skipping.", e)).printStackTrace();
+	private void handleImport(Session session, String fileName) {
+		if (session.directory == null) throw new IllegalArgumentException("Cannot import \"" + fileName + "\" without knowing the directory of the importing file.");
+		Part part = new Part(session, fileName);
+		if (session.parts.putIfAbsent(fileName, part) == null) part.fork();
+	}
+	
+	/**
+	 * Passes the entries of a file to the visitor in the order they were read, side loading imported files where they were referenced.
+	 * Each file is only side loaded the first time it is referenced, like a depth first read of the files one after another would.
+	 * 
+	 * @throws IOException if the file could not be read to its end, after passing on the entries before the failure.
+	 */
+	private void replay(Session session, Part part) throws IOException {
+		MappingVisitor visitor = session.visitor;
+		for (Object event : part.events) {
+			if (event instanceof String) {
+				String fileName = (String)event;
+				if (!session.seenFiles.add(fileName)) continue;
+				Part imported = session.parts.get(fileName);
+				imported.join();
+				if (session.digests != null) session.digests.put(fileName, imported.digest);
+				try {
+					replay(session, imported);
+				} catch (IOException e) {
+					session.errors.add(new IOException("Exception whilst sideloading file: \"" + fileName + "\"", e));
+				} catch (RuntimeException e) {
+					session.errors.add(new IOException("Exception whilst sideloading file: \"" + fileName + "\"", e));
+				}
+			} else if (event instanceof DetectedTransformation) {
+				session.addTransformation((DetectedTransformation)event);
+			} else {
+				TargetType type = (TargetType)((Object[])event)[0];
+				String[] parsed = (String[])((Object[])event)[1];
+				if (type == TargetType.CLASS && (session.overwrite || !session.classes.hasObf(parsed[0], type))) {
+					session.classes.addType(parsed[0], parsed[2], type);
+				}
+				visitor.visit(type, parsed[0], parsed[1], parsed[2]);
+			}
 		}
-    }
+		if (part.error != null) throw part.error;
+        DeferredMembers members = part.deferred;
+        members.obfuscate(obfuscator, session.classes);
+        for (int j = 0; j < members.size; j++) {
+        	TargetType type = members.types[j];
+        	String deobf = members.deobf[j];
+        	visitor.visit(type, members.obf[j] + " " + members.obfDescriptors[j], members.srg[j] + " " + members.descriptors[j], deobf);
+        	if (members.directives[j] != null) {
+        		session.addTransformation(members.directives[j], deobf, type);
+        	}
+        }
+	}
 	
 	@Override
 	public void storeEntries(File file, OBFTable table) throws IOException {
@@ -166,16 +376,37 @@ public class ONFParser extends FileParser implements URLParser {
 	
 	@Override
     protected void parseFile(BufferedReader in, OBFTable table, boolean overwrite) throws IOException {
-    	boolean takeSrg = table instanceof OBFTableSRG;
+		TableLoader loader = new TableLoader(table, overwrite);
+		Session session = new Session(null, null, loader, new LayeredOBFTable(table), overwrite);
+		Part root = new Part(session, null);
+		parse(in, root);
+		finish(session, root);
+		loader.visitEnd();
+	}
+	
+	@Override
+	protected void parseFile(LineTokenizer tokens, MappingVisitor visitor) throws IOException {
+		Session session = new Session(null, null, visitor, new ColumnarOBFTable(), true);
+		Part root = new Part(session, null);
+		parse(new BufferedReader(new StringReader(tokens.remaining())), root);
+		finish(session, root);
+	}
+	
+	/**
+	 * Reads a file into a part, scheduling its imports as they are found.
+	 * Methods and constructors are held back until the end, once every class they might refer to is known.
+	 */
+    private void parse(BufferedReader in, Part part) throws IOException {
     	String[] activePackage = null;
     	String[] activeClass = null;
-    	List<Object[]> retroActive = Lists.newArrayList();
     	String i;
         while ((i = in.readLine()) != null) {
         	if (i.isEmpty() || i.startsWith("#")) continue;
         	i = i.split("#")[0];
         	if (i.startsWith(">>")) {
-        		handleImport(i.substring(2, i.length()), table, overwrite);
+        		String fileName = i.substring(2, i.length());
+        		handleImport(part.session, fileName);
+        		part.events.add(fileName);
         		continue;
         	}
         	TargetType type = typeof(i);
@@ -199,120 +430,83 @@ public class ONFParser extends FileParser implements URLParser {
         			if (activeClass == null) throw new FormatException("Method/Constructor before class at \n" + i);
         			if (i.indexOf(" ") == -1) throw new FormatException("Missing Method/Constructor arguments at \n" + i);
         			parsed = prependClassAndPackage(unambiguate(i, type), activeClass);
-        			retroActive.add(new Object[] { type, parsed, i.indexOf("\\!") != -1 ? null : i.split("\\!")[0] });
+        			part.deferred.add(type, parsed, i.indexOf('!') == -1 ? null : i.split("!")[0]);
         			continue;
         	}
-        	if (i.indexOf("!") != -1 && type == TargetType.CLASS || type == TargetType.FIELD) {
-    			transformations.add(new DetectedTransformation(i.split("!")[0], parsed[2], type));
+        	if (i.indexOf('!') != -1 && (type == TargetType.CLASS || type == TargetType.FIELD)) {
+        		DetectedTransformation.detect(i.split("!")[0], parsed[2], type, part.events);
     		}
-        	if (overwrite | !table.hasObf(parsed[0], type)) {
-	        	if (takeSrg) {
-	        		((OBFTableSRG)table).addTypeSRG(parsed[0], parsed[1], parsed[2], type);
-	        	} else {
-	        		table.addType(parsed[0], parsed[2], type);
-	        	}
-        	}
-        }
-        for (Object[] j : retroActive) {
-        	String[] parsed = (String[])j[1];
-        	String deobfuscatedDecriptor = parsed[2].split(" ")[1];
-        	String obfuscatedDescriptor = obfuscator.obfuscateDescriptor(deobfuscatedDecriptor, table);
-        	TargetType type = (TargetType)j[0];
-        	parsed[0] = parsed[0].split(" ")[0] + " " + obfuscatedDescriptor;
-        	parsed[1] = parsed[1].split(" ")[0] + " " + deobfuscatedDecriptor;
-        	if (overwrite | !table.hasObf(parsed[0], type)) {
-	        	if (takeSrg) {
-	        		((OBFTableSRG)table).addTypeSRG(parsed[0], parsed[1], parsed[2], type);
-	        	} else {
-	        		table.addType(parsed[0], parsed[2], type);
-	        	}
-        	}
-        	if (j[2] != null) {
-        		transformations.add(new DetectedTransformation((String)j[2], parsed[2], type));
-        	}
+        	part.events.add(new Object[] { type, parsed });
         }
     }
     
     protected void writeTableNormal(Writer out, OBFTable table) throws IOException {
-    	String[] packages = table.getAllDeobf(TargetType.PACKAGE);
-        String[] classes = table.getAllDeobf(TargetType.CLASS);
-        String[] fields = table.getAllDeobf(TargetType.FIELD);
-        String[] methods = table.getAllDeobf(TargetType.METHOD);
-        String[] constructors = table.getAllDeobf(TargetType.CONSTRUCTOR);
-        for (String pack : packages) {
-        	String obf = table.obf(pack, TargetType.PACKAGE);
-        	out.write(obf + ":" + pack + "\n");
-        	for (String clazz : classes) {
-        		if (clazz.indexOf(pack) == 0) {
-        			String clazzName = clazz.replace(pack + ".", "");
-        			String clazzNameObf = table.obf(clazz, TargetType.CLASS).replace(obf, "");
-        			out.write("\t" + clazzNameObf + ":" + clazzName);
-        			for (String field : fields) {
-        				if (field.indexOf(clazz) == 0) {
-        					String fieldName = field.replace(clazz + ".", "");
-        					String fieldNameObf = table.obf(field, TargetType.FIELD).replace(clazz + ".", "");
-        					out.write("\t\t" + fieldNameObf + ":" + fieldName);
-        				}
-        			}
-        			for (String constr : constructors) {
-        				if (constr.indexOf(clazz) == 0) {
-        					out.write("\t\t<init> " + constr.split(" ")[1] + "\n");
-        				}
-        			}
-        			for (String method : methods) {
-        				if (method.indexOf(clazz) == 0) {
-        					String desc = method.split(" ")[1];
-        					String methodName = method.replace(clazz + ".", "").split(" ")[0];
-        					String methodNameObf = table.obf(method, TargetType.METHOD).replace(clazz + ".", "").split(" ")[0];
-        					out.write("\t\t" + methodNameObf + ":" + methodName + " " + desc);
-        				}
-        			}
-        		}
-        	}
-        }
+    	writeTable(out, table, null);
     }
     
     protected void writeTableSRG(Writer out, OBFTableSRG table) throws IOException {
-    	String[] packages = table.getAllDeobf(TargetType.PACKAGE);
-        String[] classes = table.getAllDeobf(TargetType.CLASS);
-        String[] fields = table.getAllDeobf(TargetType.FIELD);
-        String[] methods = table.getAllDeobf(TargetType.METHOD);
-        String[] constructors = table.getAllDeobf(TargetType.CONSTRUCTOR);
-        for (String pack : packages) {
-        	String obf = table.obf(pack, TargetType.PACKAGE);
-        	out.write(obf + ":" + pack + "\n");
-        	for (String clazz : classes) {
-        		if (clazz.indexOf(pack) == 0) {
-        			String clazzName = clazz.replace(pack + ".", "");
-        			String clazzNameObf = table.obf(clazz, TargetType.CLASS).replace(obf, "");
-        			out.write("\t" + clazzNameObf + ":" + clazzName + "\n");
-        			for (String field : fields) {
-        				if (field.indexOf(clazz) == 0) {
-        					String fieldName = field.replace(clazz + ".", "");
-        					String fieldNameSrg = table.getSRGFromDeObf(field, TargetType.FIELD).replace(clazz + ".", "");
-        					String fieldNameObf = table.obf(field, TargetType.FIELD).replace(clazz + ".", "");
-        					out.write("\t\t" + fieldNameObf + ":" + fieldNameSrg + ":" + fieldName + "\n");
-        				}
-        			}
-        			for (String constr : constructors) {
-        				if (constr.indexOf(clazz) == 0) {
-        					out.write("\t\t<init> " + constr.split(" ")[1] + "\n");
-        				}
-        			}
-        			for (String method : methods) {
-        				if (method.indexOf(clazz) == 0) {
-        					String desc = method.split(" ")[1];
-        					String methodName = method.replace(clazz + ".", "").split(" ")[0];
-        					String methodNameSrg = table.getSRGFromDeObf(method, TargetType.METHOD).replace(clazz + ".", "").split(" ")[0];
-        					String methodNameObf = table.obf(method, TargetType.METHOD).replace(clazz + ".", "").split(" ")[0];
-        					out.write("\t\t" + methodNameObf + ":" + methodNameSrg + ":" + methodName + " " + desc + "\n");
-        				}
-        			}
+    	writeTable(out, table, table);
+    }
+    
+    /**
+     * Writes a table in a single pass over its package/class hierarchy.
+     * 
+     * @param out		Writer to write to
+     * @param table		Table to write
+     * @param srgTable	The same table if searge names should be included, otherwise null
+     */
+    private void writeTable(Writer out, OBFTable table, OBFTableSRG srgTable) throws IOException {
+    	MappingHierarchy hierarchy = table.getHierarchy();
+        for (String pack : hierarchy.getPackages()) {
+        	ObfMapSrg.Entry packEntry = hierarchy.getPackage(pack);
+        	if (packEntry == null) continue;
+        	String obfPack = packEntry.obf();
+        	out.write(obfPack + ":" + pack + "\n");
+        	for (ObfMapSrg.Entry classEntry : hierarchy.getClassEntries(pack)) {
+        		String clazz = classEntry.deObf();
+        		String obfClazz = classEntry.obf();
+        		out.write("\t" + relative(obfClazz, obfPack) + ":" + relative(clazz, pack) + "\n");
+        		for (ObfMapSrg.Entry field : hierarchy.getMemberEntries(clazz, TargetType.FIELD)) {
+        			writeMember(out, srgTable != null, field, TargetType.FIELD, clazz, obfClazz);
+        		}
+        		for (String constr : hierarchy.getMembers(clazz, TargetType.CONSTRUCTOR)) {
+        			out.write("\t\t<init> " + constr.substring(constr.indexOf(' ') + 1) + "\n");
+        		}
+        		for (ObfMapSrg.Entry method : hierarchy.getMemberEntries(clazz, TargetType.METHOD)) {
+        			writeMember(out, srgTable != null, method, TargetType.METHOD, clazz, obfClazz);
         		}
         	}
         }
     }
     
+    private void writeMember(Writer out, boolean searge, ObfMapSrg.Entry entry, TargetType type, String clazz, String obfClazz) throws IOException {
+    	String member = entry.deObf();
+    	int space = member.indexOf(' ');
+    	String name = relative(space < 0 ? member : member.substring(0, space), clazz);
+    	String obfName = relative(stripDescriptor(entry.obf()), obfClazz);
+    	out.write("\t\t" + obfName + ":");
+    	if (searge) {
+    		String srgName = relative(stripDescriptor(entry.srg()), clazz);
+    		if (!srgName.equals(name)) {
+    			String prefix = type == TargetType.METHOD ? "func_" : "field_";
+    			out.write((srgName.startsWith(prefix) ? srgName.substring(prefix.length()) : srgName) + ":");
+    		}
+    	}
+    	out.write(name);
+    	if (space >= 0) out.write(member.substring(space));
+    	out.write("\n");
+    }
+    
+    private String relative(String name, String owner) {
+    	if (owner.isEmpty() || name.length() <= owner.length() || !name.startsWith(owner) || name.charAt(owner.length()) != '.') return name;
+    	return name.substring(owner.length() + 1);
+    }
+    
+    private String stripDescriptor(String name) {
+    	int space = name.indexOf(' ');
+    	return space < 0 ? name : name.substring(0, space);
+    }
+    
     private String[] prependClassAndPackage(String[] arr, String[]... components) {
     	for (int i = 0; i < arr.length; i++) {
     		for (int j = components.length - 1; j >= 0; j--) {
@@ -364,37 +558,238 @@ public class ONFParser extends FileParser implements URLParser {
     	return TargetType.PACKAGE;
     }
     
-    public class DetectedTransformation {
+    /**
+     * The state of a single load: where imports are looked up, which files have been read and which access transformations were found.
+     * Every load gets its own session, so one parser can run any number of loads at the same time.
+     */
+    public static final class Session {
+    	private final String directory;
+    	private final String fileName;
+    	private final MappingVisitor visitor;
+    	private final OBFTable classes;
+    	private final boolean overwrite;
+    	
+    	private final Set<String> seenFiles = new HashSet<String>();
+    	private final ConcurrentMap<String, Part> parts = new ConcurrentHashMap<String, Part>();
+    	private final List<DetectedTransformation> transformations = Lists.newArrayList();
+    	private final List<IOException> errors = Lists.newArrayList();
+    	/**
+    	 * The digests of the files read, in the order they were passed on, when the load is being cached.
+    	 */
+    	private Map<String, byte[]> digests;
+    	
+    	/**
+    	 * @param directory	The directory imports are looked up in, or null if the input can not import other files
+    	 * @param fileName	The name of the file being read, or null
+    	 * @param visitor	The visitor to pass entries to
+    	 * @param classes	Table used to obfuscate method descriptors.  The classes of every file read are added to it.
+    	 * @param overwrite	If false a class already in the classes table keeps its mapping, as it does in the table being loaded into
+    	 */
+    	private Session(String directory, String fileName, MappingVisitor visitor, OBFTable classes, boolean overwrite) {
+    		this.directory = directory;
+    		this.visitor = visitor;
+    		this.classes = classes;
+    		this.overwrite = overwrite;
+    		this.fileName = fileName;
+    		if (fileName != null) seenFiles.add(fileName);
+    	}
+    	
+    	/**
+    	 * Gets the access transformations found in the files read by this session.
+    	 */
+    	public List<DetectedTransformation> getDetectedTransformations() {
+    		return transformations;
+    	}
+    	
+    	/**
+    	 * Records a transformation, together with any it implies, and passes them on to the visitor.
+    	 */
+    	private void addTransformation(String transform, String target, TargetType type) throws IOException {
+    		List<DetectedTransformation> detected = Lists.newArrayList();
+    		DetectedTransformation.detect(transform, target, type, detected);
+    		for (DetectedTransformation transformation : detected) {
+    			addTransformation(transformation);
+    		}
+    	}
+    	
+    	private void addTransformation(DetectedTransformation transformation) throws IOException {
+    		transformations.add(transformation);
+    		visitor.visitAccess(transformation.targetType, transformation.mcpTarget, transformation.directives, transformation.isGlobal);
+    	}
+    }
+    
+    /**
+     * One file of a session, parsed on its own so that the files it imports can be read at the same time on the common fork-join pool.
+     * Entries, transformations and imports are kept in file order until the session passes them on.
+     */
+    private final class Part extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final Session session;
+		private final String fileName;
+		
+		/**
+		 * Entries as {type, names}, transformations and the names of imported files, in the order they were read.
+		 */
+		private final List<Object> events = Lists.newArrayList();
+		private final DeferredMembers deferred = new DeferredMembers();
+		/**
+		 * Set by whichever comes first, the read of the file or the settling of a session that no longer needs it.
+		 */
+		private final AtomicBoolean claimed = new AtomicBoolean();
+		private IOException error;
+		private byte[] digest;
+		
+		/**
+		 * @param fileName	Name of the imported file to read, or null for a file read by the caller.
+		 */
+		private Part(Session session, String fileName) {
+			this.session = session;
+			this.fileName = fileName;
+		}
+		
+		@Override
+		protected void compute() {
+			if (!claimed.compareAndSet(false, true)) return;
+			String directory = session.directory;
+			try {
+				InputStream input = null;
+	    		if (directory.contains("!")) {
+	        		input = ONFParser.class.getResourceAsStream(directory.split("!")[1].concat("/").concat(fileName));
+	        	} else {
+	        		File f = new File(directory, fileName);
+	        		if (f.exists()) input = new FileInputStream(f);
+	        	}
+	    		if (input == null) throw new IOException("File \"" + directory.concat("/").concat(fileName) + "\" could not be opened.");
+				read(input);
+			} catch (IOException e) {
+				error = e;
+			} catch (RuntimeException e) {
+				// Malformed lines can fail anywhere in the parser, report them like any other import failure
+				error = new IOException("Exception whilst reading file", e);
+			}
+		}
+		
+		private void read(InputStream stream) throws IOException {
+	        if (stream == null) throw new IllegalArgumentException("InputStream cannot be null!");
+	        BufferedReader in = null;
+	        try {
+	        	MessageDigest md = session.digests == null ? null : ONFCache.newDigest();
+	        	if (md != null) stream = new DigestInputStream(stream, md);
+	            in = new BufferedReader(new InputStreamReader(stream));
+	            parse(in, this);
+	            if (md != null) digest = md.digest();
+	        } catch (IOException e) {
+	        	throw new IOException("Exception whilst reading file", e);
+	        } catch (IllegalArgumentException e) {
+	        	throw new IOException("Exception whilst reading file", e);
+	        } finally {
+	            if (in != null) in.close();
+	        }
+	    }
+    }
+    
+    /**
+     * The methods and constructors of a file, held back until every class their descriptors might refer to is known.
+     * <p>
+     * Members are kept as columns rather than one record each, and once the classes are fixed their descriptors are obfuscated in parallel.
+     */
+    private static final class DeferredMembers {
+    	/**
+    	 * Below this many members a file is obfuscated on the calling thread, handing it off would cost more than it saves.
+    	 */
+    	private static final int PARALLEL_THRESHOLD = 256;
+    	
+    	private TargetType[] types = new TargetType[16];
+    	/**
+    	 * Obfuscated and searge names without their descriptors.
+    	 */
+    	private String[] obf = new String[16];
+    	private String[] srg = new String[16];
+    	/**
+    	 * Deobfuscated names with their descriptors.
+    	 */
+    	private String[] deobf = new String[16];
+    	private String[] descriptors = new String[16];
+    	private String[] directives = new String[16];
+    	private String[] obfDescriptors;
+    	private int size;
+    	
+    	private void add(TargetType type, String[] parsed, String directive) {
+    		if (size == types.length) grow(size + (size >>> 1));
+    		types[size] = type;
+    		obf[size] = parsed[0].split(" ")[0];
+    		srg[size] = parsed[1].split(" ")[0];
+    		deobf[size] = parsed[2];
+    		descriptors[size] = parsed[2].split(" ")[1];
+    		directives[size] = directive;
+    		size++;
+    	}
+    	
+    	/**
+    	 * Obfuscates the descriptors of all members.  The table must not be modified until this returns.
+    	 */
+    	private void obfuscate(final Obfuscator obfuscator, final OBFTable classes) {
+    		final String[] result = obfDescriptors = new String[size];
+    		IntStream indices = IntStream.range(0, size);
+    		if (size >= PARALLEL_THRESHOLD) indices = indices.parallel();
+    		indices.forEach(new IntConsumer() {
+    			public void accept(int i) {
+    				result[i] = obfuscator.obfuscateDescriptor(descriptors[i], classes);
+    			}
+    		});
+    	}
+    	
+    	private void grow(int capacity) {
+    		types = Arrays.copyOf(types, capacity);
+    		obf = Arrays.copyOf(obf, capacity);
+    		srg = Arrays.copyOf(srg, capacity);
+    		deobf = Arrays.copyOf(deobf, capacity);
+    		descriptors = Arrays.copyOf(descriptors, capacity);
+    		directives = Arrays.copyOf(directives, capacity);
+    	}
+    }
+    
+    public static class DetectedTransformation {
     	public final boolean isGlobal;
     	
     	public final String directives;
     	public final String mcpTarget;
     	public final TargetType targetType;
     	
-    	private DetectedTransformation(String transform, String target, TargetType type) throws FormatException {
-    		mcpTarget = target;
-    		isGlobal = type == TargetType.CLASS;
-    		if (isGlobal) {
-    			boolean hasM = transform.lastIndexOf('m') >= transform.length() - 2;
-    			boolean hasF = transform.lastIndexOf('f') >= transform.length() - 2;
-    			if (hasM || hasF) {
-    				transform = transform.substring(0, transform.length() - 1);
-    				if (hasM) {
-    					targetType = TargetType.METHOD;
-	    				if (hasF) {
-	    					transform = transform.substring(0, transform.length() - 1);
-	    					transformations.add(new DetectedTransformation(transform, target, TargetType.FIELD, true));
-	    				}
-    				} else {
-    					targetType = TargetType.FIELD;
-    				}
+    	/**
+    	 * Reads the directives of a transformation.  Class transformations flagged for both fields and methods add two transformations.
+    	 * 
+    	 * @param into	The list to add the transformations to
+    	 */
+    	private static void detect(String transform, String target, TargetType type, List<? super DetectedTransformation> into) throws FormatException {
+    		if (type != TargetType.CLASS) {
+    			into.add(new DetectedTransformation(transform, target, type, false));
+    			return;
+    		}
+    		boolean hasM = false;
+    		boolean hasF = false;
+    		int end = transform.length();
+    		// The flags are the last one or two characters, an 'f' right after '-' or '+' belongs to the final modifier instead
+    		while (end > 0 && transform.length() - end < 2) {
+    			char c = transform.charAt(end - 1);
+    			if (c == 'm' && !hasM) {
+    				hasM = true;
+    			} else if (c == 'f' && !hasF && !(end > 1 && (transform.charAt(end - 2) == '-' || transform.charAt(end - 2) == '+'))) {
+    				hasF = true;
     			} else {
-    				throw new FormatException("Global access transformations must have a target type flag (f|m) at \n" + transform + "!" + target);
+    				break;
     			}
-    		} else {
-    			targetType = type;
+    			end--;
     		}
-    		directives = transform;
+    		if (!hasM && !hasF) {
+    			throw new FormatException("Global access transformations must have a target type flag (f|m) at \n" + transform + "!" + target);
+    		}
+    		transform = transform.substring(0, end);
+    		if (hasM && hasF) {
+    			into.add(new DetectedTransformation(transform, target, TargetType.FIELD, true));
+    		}
+    		into.add(new DetectedTransformation(transform, target, hasM ? TargetType.METHOD : TargetType.FIELD, true));
     	}
     	
     	private DetectedTransformation(String transform, String target, TargetType type, boolean global) {
@@ -404,4 +799,4 @@ public class ONFParser extends FileParser implements URLParser {
 			isGlobal = global;
     	}
     }
-}
\ No newline at end of file
+}
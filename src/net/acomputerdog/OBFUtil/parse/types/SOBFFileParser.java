@@ -2,12 +2,12 @@ package net.acomputerdog.OBFUtil.parse.types;
 
 import net.acomputerdog.OBFUtil.map.TargetType;
 import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.parse.MappingVisitor;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 
 import java.io.*;
 
-import com.blazeloader.util.regex.Patterns;
-
 /**
  * Reads and write obfuscation data to an SOBF (Sided OBFuscation) file.  This format is an adaption of the OBF format to support sides defined in MCP files.
  * General format is:
@@ -29,41 +29,55 @@ public class SOBFFileParser extends OBFParser {
     }
     
     @Override
-    protected void parseFile(BufferedReader reader, OBFTable table, boolean overwrite) throws IOException {
-    	int line = 0;
-    	String str;
-    	while ((str = reader.readLine()) != null) {
-            line++;
-            if (isCommentLine(str)) continue;
-            String[] typeParts = str.split(Patterns.COLON);
-            if (typeParts.length < 2) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
+    protected void parseFile(LineTokenizer tokens, MappingVisitor visitor) throws IOException {
+    	while (tokens.nextLine()) {
+            if (isCommentLine(tokens)) continue;
+            if (tokens.split(':') < 2) {
+                throw new FormatException("Format error on line " + tokens.getLineNumber() + ": \"" + tokens.line() + "\"");
             }
-            String[] sideParts = typeParts[0].split(Patterns.PERIOD);
-            if (sideParts.length < 2) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
+            int sideParts = tokens.splitField(0, '.');
+            if (sideParts < 2) {
+                throw new FormatException("Format error on line " + tokens.getLineNumber() + ": \"" + tokens.line() + "\"");
             }
-            TargetType type = TargetType.valueOf(sideParts[0]);
+            TargetType type = TargetType.getTypeByName(tokens.view(0));
             if (type == null) {
-                throw new FormatException("Illegal target type on line " + line + ": \"" + typeParts[0] + "\"");
+                throw new FormatException("Illegal target type on line " + tokens.getLineNumber() + ": \"" + tokens.field(0) + "\"");
             }
-            String[] obfParts = typeParts[1].split(Patterns.EQUALS);
-            if (obfParts.length < 2) {
-                throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
+            if (tokens.splitField(sideParts, '=') < 2) {
+                throw new FormatException("Format error on line " + tokens.getLineNumber() + ": \"" + tokens.line() + "\"");
             }
-            int side = Integer.parseInt(sideParts[1]);
-            if ((overwrite || !table.hasDeobf(obfParts[0], type)) && (side == this.side)) {
-                table.addType(obfParts[0], obfParts[1], type);
+            if (parseSide(tokens) == this.side) {
+                String deobf = tokens.field(sideParts + 1);
+                visitor.visit(type, tokens.field(sideParts), deobf, deobf);
             }
         }
     }
     
+    private int parseSide(LineTokenizer tokens) throws FormatException {
+    	int length = tokens.fieldLength(1);
+    	boolean negative = length > 1 && tokens.fieldByte(1, 0) == '-';
+    	int side = 0;
+    	for (int i = negative ? 1 : 0; i < length; i++) {
+    		int digit = tokens.fieldByte(1, i) - '0';
+    		if (digit < 0 || digit > 9 || side > (Integer.MAX_VALUE - digit) / 10) {
+    			throw new FormatException("Illegal side on line " + tokens.getLineNumber() + ": \"" + tokens.field(1) + "\"");
+    		}
+    		side = side * 10 + digit;
+    	}
+    	if (length == 0) throw new FormatException("Illegal side on line " + tokens.getLineNumber() + ": \"\"");
+    	return negative ? -side : side;
+    }
+    
     @Override
     protected void writeEntry(Writer out, String obf, TargetType type, OBFTable table) throws IOException {
-    	String deobf = table.deobf(obf, type);
+    	writeEntry(out, type, obf, table.deobf(obf, type));
+    }
+    
+    @Override
+    protected void writeEntry(Writer out, TargetType type, String obf, String deobf) throws IOException {
         out.write(type.name());
         out.write(".");
-        out.write(side);
+        out.write(Integer.toString(side));
         out.write(":");
         out.write(obf);
         out.write("=");
@@ -3,9 +3,18 @@ package net.acomputerdog.OBFUtil.parse.types;
 import net.acomputerdog.OBFUtil.map.TargetType;
 import net.acomputerdog.OBFUtil.parse.FileParser;
 import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.parse.LineTokenizer;
+import net.acomputerdog.OBFUtil.parse.MappingVisitor;
+import net.acomputerdog.OBFUtil.parse.TableLoader;
+import net.acomputerdog.OBFUtil.table.EntryVisitor;
+import net.acomputerdog.OBFUtil.table.MappingBatch;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import com.blazeloader.util.regex.Patterns;
 
@@ -14,8 +23,14 @@ import com.blazeloader.util.regex.Patterns;
  */
 public class SRGFileParser extends FileParser {
 
+    /**
+     * Files are split into chunks of about this many bytes when parsing in parallel.
+     */
+    private static final int CHUNK_SIZE = 1 << 20;
+
     private final String side;
     private final boolean stripDescs;
+    private final boolean parallel;
 
     /**
      * Creates a new SRGFileParser
@@ -24,51 +39,173 @@ public class SRGFileParser extends FileParser {
      * @param stripMethodDescriptors If true, method descriptors will not be read.
      */
     public SRGFileParser(String side, boolean stripMethodDescriptors) {
+        this(side, stripMethodDescriptors, false);
+    }
+
+    /**
+     * Creates a new SRGFileParser
+     *
+     * @param side                   The side to read.  Should be "C" or "S" (client/server).  Unsided entries are always read, but will be saved as as this.
+     * @param stripMethodDescriptors If true, method descriptors will not be read.
+     * @param parallel               If true, files are split into line-aligned chunks that are parsed on the common fork-join pool.
+     *                               Entries are still added in file order, so the result is the same as for a sequential parse.
+     */
+    public SRGFileParser(String side, boolean stripMethodDescriptors, boolean parallel) {
         this.side = side;
         this.stripDescs = stripMethodDescriptors;
+        this.parallel = parallel;
     }
     
     @Override
     protected void parseFile(BufferedReader reader, OBFTable table, boolean overwrite) throws IOException {
+    	parseFile(LineTokenizer.read(reader), table, overwrite);
+    }
+    
+    @Override
+    protected void parseFile(LineTokenizer tokens, OBFTable table, boolean overwrite) throws IOException {
+    	if (parallel) {
+    		List<MappingBatch> batches = parseParallel(tokens);
+    		for (TargetType type : TargetType.values()) {
+    			int count = 0;
+    			for (MappingBatch batch : batches) count += batch.size(type);
+    			if (count > 0) table.ensureCapacity(type, count);
+    		}
+    		for (MappingBatch batch : batches) table.addAll(batch, overwrite);
+    		return;
+    	}
+    	TableLoader loader = new TableLoader(table, overwrite);
+    	parseFile(tokens, loader);
+    	loader.visitEnd();
+    }
+    
+    /**
+     * Passes the entries of a file to a visitor.  When parsing in parallel the entries of each chunk arrive grouped by type.
+     */
+    @Override
+    protected void parseFile(LineTokenizer tokens, final MappingVisitor visitor) throws IOException {
+    	if (parallel) {
+    		for (MappingBatch batch : parseParallel(tokens)) {
+    			for (final TargetType type : TargetType.values()) {
+    				batch.forEach(type, new EntryVisitor<IOException>() {
+    					public void visit(String obf, String srg, String deobf) throws IOException {
+    						visitor.visit(type, obf, srg, deobf);
+    					}
+    				});
+    			}
+    		}
+    		return;
+    	}
+    	while (tokens.nextLine()) {
+            parseLine(tokens, visitor);
+        }
+    }
+    
+    /**
+     * Parses a file into one batch per chunk, in file order.
+     */
+    private List<MappingBatch> parseParallel(LineTokenizer tokens) throws IOException {
+    	List<Chunk> chunks = new ArrayList<Chunk>();
+    	for (LineTokenizer part : tokens.divide(CHUNK_SIZE)) {
+    		chunks.add(new Chunk(part));
+    	}
+    	ForkJoinTask.invokeAll(chunks);
+    	List<MappingBatch> batches = new ArrayList<MappingBatch>(chunks.size());
     	int line = 0;
-    	String str;
-    	while ((str = reader.readLine()) != null) {
-            line++;
-            String[] sections = str.split(Patterns.SPACE);
-            if (sections.length < 3) {
-                throw new FormatException("Not enough sections on line " + line + ": \"" + str + "\"");
-            }
-            TargetType type = TargetType.getType(sections[0].replace(":", ""));
-            if (type == null) {
-                throw new FormatException("Illegal target type on line " + line + ": \"" + sections[0] + "\"");
+    	for (Chunk chunk : chunks) {
+    		if (chunk.failed) {
+    			// Chunks count their lines from zero, parse the line again to report it with its number in the whole file
+    			chunk.tokens.setLineNumber(line + chunk.tokens.getLineNumber());
+    			parseLine(chunk.tokens, new MappingVisitor() {});
+    		}
+    		line += chunk.tokens.getLineNumber();
+    		batches.add(chunk.batch);
+    	}
+    	return batches;
+    }
+    
+    private void parseLine(LineTokenizer tokens, MappingVisitor visitor) throws IOException {
+        int sections = tokens.splitWhitespace();
+        if (sections < 3) {
+            throw new FormatException("Not enough sections on line " + tokens.getLineNumber() + ": \"" + tokens.line() + "\"");
+        }
+        int typeLength = tokens.fieldLength(0);
+        while (typeLength > 0 && tokens.fieldByte(0, typeLength - 1) == ':') typeLength--;
+        TargetType type = TargetType.getType(tokens.view(0, 0, typeLength));
+        if (type == null) {
+            throw new FormatException("Illegal target type on line " + tokens.getLineNumber() + ": \"" + tokens.field(0) + "\"");
+        }
+        String obf;
+        String deobf;
+        int side;
+        if (type == TargetType.METHOD) {
+            if (sections < 5) {
+                throw new FormatException("Not enough sections on line " + tokens.getLineNumber() + ": \"" + tokens.line() + "\"");
             }
-            String obf;
-            String deobf;
-            String side;
-            if (type == TargetType.METHOD) {
-                if (sections.length < 5) {
-                    throw new FormatException("Not enough sections on line " + line + ": \"" + str + "\"");
-                }
-                if (stripDescs) {
-                    obf = sections[1].replace('/', '.');
-                    deobf = sections[3].replace('/', '.');
-                } else {
-                	obf = sections[1].replace('/', '.').concat(" ").concat(sections[2].replace('.', '/'));
-                    deobf = sections[3].replace('/', '.').concat(" ").concat(sections[4].replace('.', '/'));
-                }
-                side = (sections.length >= 6) ? sections[5].replace("#", "") : "";
+            if (stripDescs) {
+                obf = tokens.field(1, '/', '.');
+                deobf = tokens.field(3, '/', '.');
             } else {
-                obf = sections[1].replace('/', '.');
-                deobf = sections[2].replace('/', '.');
-                side = (sections.length >= 4) ? sections[3].replace("#", "") : "";
-
-
-            }
-            if ((overwrite || !table.hasDeobf(obf, type)) && (side.isEmpty() || this.side.isEmpty() || side.equals(this.side))) {
-                table.addType(obf, deobf, type);
+            	obf = tokens.startText().appendField(1, '/', '.').appendChar(' ').appendField(2, '.', '/').finishText();
+                deobf = tokens.startText().appendField(3, '/', '.').appendChar(' ').appendField(4, '.', '/').finishText();
             }
+            side = 5;
+        } else {
+            obf = tokens.field(1, '/', '.');
+            deobf = tokens.field(2, '/', '.');
+            side = 3;
+        }
+        if (isSide(tokens, side)) {
+            visitor.visit(type, obf, deobf, deobf);
         }
     }
+    
+    /**
+     * Checks if the side section of a line, ignoring any '#', is empty or matches the side being read.
+     */
+    private boolean isSide(LineTokenizer tokens, int field) {
+    	if (side.isEmpty() || field >= tokens.fieldCount()) return true;
+    	int length = tokens.fieldLength(field);
+    	int matched = 0;
+    	for (int i = 0; i < length; i++) {
+    		byte b = tokens.fieldByte(field, i);
+    		if (b == '#') continue;
+    		if (matched == side.length() || side.charAt(matched) != b) return false;
+    		matched++;
+    	}
+    	return matched == 0 || matched == side.length();
+    }
+
+    /**
+     * Parses one line-aligned part of a file into its own batch.
+     */
+    private final class Chunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final LineTokenizer tokens;
+    	private final MappingBatch batch = new MappingBatch();
+    	private boolean failed;
+    	
+    	private Chunk(LineTokenizer tokens) {
+    		this.tokens = tokens;
+    	}
+
+		@Override
+		protected void compute() {
+			MappingVisitor collector = new MappingVisitor() {
+				@Override
+				public void visit(TargetType type, String obf, String srg, String deobf) {
+					batch.addTypeSRG(obf, srg, deobf, type);
+				}
+			};
+			try {
+				while (tokens.nextLine()) {
+					parseLine(tokens, collector);
+				}
+			} catch (IOException e) {
+				failed = true;
+			}
+		}
+    }
 
     /**
      * Saves all entries located in an OBFTable into a file.
@@ -85,21 +222,23 @@ public class SRGFileParser extends FileParser {
         Writer out = null;
         try {
             out = new BufferedWriter(new FileWriter(file));
-            for (TargetType type : TargetType.parsable()) {
+            final Writer writer = out;
+            for (final TargetType type : TargetType.parsable()) {
             	if (!table.supportsType(type)) continue;
-                for (String obf : table.getAllObf(type)) {
-                    String deobf = table.deobf(obf, type);
-                    out.write(getPrefix(type));
-                    out.write(": ");
-                    out.write(type == TargetType.PACKAGE && obf.length() == 1 ? obf : slash(obf));
-                    out.write(" ");
-                    out.write(type == TargetType.PACKAGE && deobf.length() == 1 ? deobf : slash(deobf));
-                    if (side.length() > 0) {
-	                    out.write(" #");
-	                    out.write(side);
-                    }
-                    out.write(Patterns.LINE_SEPARATOR);
-                }
+            	table.forEach(type, new EntryVisitor<IOException>() {
+            		public void visit(String obf, String srg, String deobf) throws IOException {
+            			writer.write(getPrefix(type));
+            			writer.write(": ");
+            			writer.write(type == TargetType.PACKAGE && obf.length() == 1 ? obf : slash(obf));
+            			writer.write(" ");
+            			writer.write(type == TargetType.PACKAGE && deobf.length() == 1 ? deobf : slash(deobf));
+            			if (side.length() > 0) {
+            				writer.write(" #");
+            				writer.write(side);
+            			}
+            			writer.write(Patterns.LINE_SEPARATOR);
+            		}
+            	});
             }
         } finally {
             if (out != null) {
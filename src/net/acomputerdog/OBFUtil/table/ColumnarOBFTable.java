@@ -0,0 +1,522 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
+import net.acomputerdog.OBFUtil.map.TargetType;
+
+/**
+ * A compact implementation of OBFTable.
+ * <p>
+ * Names are kept in parallel arrays (one per column) with open-addressing int indices over them,
+ * so each mapping costs a handful of array slots instead of an entry object and several hash nodes.
+ * The names themselves live in a {@link NamePool}, so package and class prefixes are only stored once
+ * and are shared between the obf, srg and deobf columns.
+ */
+public class ColumnarOBFTable implements OBFTable {
+	protected final Column[] columns = new Column[TargetType.values().length];
+	protected final NamePool pool;
+	protected int modCount = 0;
+
+	public ColumnarOBFTable() {
+		this(new NamePool());
+	}
+
+	/**
+	 * Creates a table that stores its names in the given pool.
+	 * Tables sharing a pool also share the storage of any names they have in common.
+	 */
+	public ColumnarOBFTable(NamePool pool) {
+		this.pool = pool;
+	}
+
+	public String deobf(String obfName, TargetType type) {
+		Column column = getColumn(type);
+		int row = column.findObf(obfName);
+		return row < 0 ? null : column.deobfAt(row);
+	}
+
+	public String obf(String deobfName, TargetType type) {
+		Column column = getColumn(type);
+		int row = column.findDeobf(deobfName);
+		return row < 0 ? null : column.obfAt(row);
+	}
+
+	@Override
+	public String deobf(MemberKey obfKey, TargetType type) {
+		Column column = getColumn(type);
+		int row = column.findObf(obfKey);
+		return row < 0 ? null : column.deobfAt(row);
+	}
+
+	@Override
+	public String obf(MemberKey deobfKey, TargetType type) {
+		Column column = getColumn(type);
+		int row = column.findDeobf(deobfKey);
+		return row < 0 ? null : column.obfAt(row);
+	}
+
+	public boolean hasObf(String obfName, TargetType type) {
+		Column column = columns[type.ordinal()];
+		return column != null && column.findObf(obfName) >= 0;
+	}
+
+	public boolean hasDeobf(String deobfName, TargetType type) {
+		Column column = columns[type.ordinal()];
+		return column != null && column.findDeobf(deobfName) >= 0;
+	}
+
+	public boolean supportsType(TargetType type) {
+		return columns[type.ordinal()] != null;
+	}
+
+	public String[] getAllObf(TargetType type) {
+		Column column = getColumn(type);
+		String[] result = new String[column.size];
+		for (int row = 0; row < column.size; row++) result[row] = column.obfAt(row);
+		return result;
+	}
+
+	public String[] getAllDeobf(TargetType type) {
+		Column column = getColumn(type);
+		return column.deobf.distinct();
+	}
+
+	public String[] getObfMembers(String obfOwner, TargetType type) {
+		return getColumn(type).obf.members(obfOwner);
+	}
+
+	public String[] getDeobfMembers(String deobfOwner, TargetType type) {
+		return getColumn(type).deobf.members(deobfOwner);
+	}
+
+	public <E extends Exception> void forEach(TargetType type, EntryVisitor<E> visitor) throws E {
+		Column column = getColumn(type);
+		for (int row = 0; row < column.size; row++) {
+			String deobf = column.deobfAt(row);
+			visitor.visit(column.obfAt(row), column.srg == null ? deobf : column.srgAt(row), deobf);
+		}
+	}
+
+	public Spliterator<ObfMapSrg.Entry> spliterator(TargetType type) {
+		return new ColumnSpliterator(getColumn(type), 0, getColumn(type).size);
+	}
+
+	public void addType(String obfName, String deObfName, TargetType type) {
+		getOrCreateColumn(type).add(obfName, deObfName, deObfName);
+		modCount++;
+	}
+
+	public void ensureCapacity(TargetType type, int additional) {
+		if (additional <= 0) return;
+		Column column = getOrCreateColumn(type);
+		column.reserve(column.size + additional);
+	}
+
+	public void addAll(MappingBatch batch, boolean overwrite) {
+		for (TargetType type : TargetType.values()) {
+			int count = batch.size(type);
+			if (count == 0) continue;
+			Column column = getOrCreateColumn(type);
+			column.reserve(column.size + count);
+			for (int i = 0; i < count; i++) {
+				String obf = batch.getObf(type, i);
+				if (overwrite || column.findObf(obf) < 0) column.add(obf, batch.getSRG(type, i), batch.getDeobf(type, i));
+			}
+		}
+		modCount++;
+	}
+
+	/**
+	 * Removes the mapping of an obfuscated name.  The last entry of the type is moved into its place, so iteration order is not kept.
+	 */
+	public boolean removeObf(String obfName, TargetType type) {
+		Column column = columns[type.ordinal()];
+		if (column == null) return false;
+		int row = column.findObf(obfName);
+		if (row < 0) return false;
+		column.remove(row);
+		modCount++;
+		return true;
+	}
+
+	public void writeToTable(OBFTable table, boolean overwrite) {
+		OBFTableSRG srgTable = table instanceof OBFTableSRG && this instanceof OBFTableSRG ? (OBFTableSRG)table : null;
+		for (TargetType type : TargetType.values()) {
+			Column column = columns[type.ordinal()];
+			if (column == null) continue;
+			table.ensureCapacity(type, column.size);
+			for (int row = 0; row < column.size; row++) {
+				String obf = column.obfAt(row);
+				if (overwrite || !table.hasObf(obf, type)) {
+					if (srgTable != null) {
+						srgTable.addTypeSRG(obf, column.srgAt(row), column.deobfAt(row), type);
+					} else {
+						table.addType(obf, column.deobfAt(row), type);
+					}
+				}
+			}
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (Column column : columns) {
+			if (column != null) size += column.size;
+		}
+		return size;
+	}
+
+	public int getModCount() {
+		return modCount;
+	}
+
+	/**
+	 * Creates a read-only snapshot of this table.
+	 */
+	public FrozenOBFTable freeze() {
+		return new FrozenOBFTable(this);
+	}
+
+	/**
+	 * Gets the column holding entries for the given type.
+	 *
+	 * @throws IllegalArgumentException if this table has no entries of that type.
+	 */
+	protected Column getColumn(TargetType type) {
+		Column column = columns[type.ordinal()];
+		if (column == null) throw new IllegalArgumentException("Unknown target type: " + type.name());
+		return column;
+	}
+
+	protected Column getOrCreateColumn(TargetType type) {
+		Column column = columns[type.ordinal()];
+		if (column == null) columns[type.ordinal()] = column = createColumn();
+		return column;
+	}
+
+	protected Column createColumn() {
+		return new Column(pool, false);
+	}
+
+	private static final class ColumnSpliterator extends RowSpliterator {
+		private final Column column;
+
+		ColumnSpliterator(Column column, int origin, int fence) {
+			super(origin, fence);
+			this.column = column;
+		}
+
+		protected ObfMapSrg.Entry entry(int row) {
+			return new MappingEntry(column.obfAt(row), column.srgAt(row), column.deobfAt(row));
+		}
+
+		protected RowSpliterator range(int origin, int fence) {
+			return new ColumnSpliterator(column, origin, fence);
+		}
+	}
+
+	/**
+	 * Storage for all entries of a single TargetType.
+	 * <p>
+	 * Row {@code i} of the obf, srg and deobf key columns together form one mapping, each held as a {@link NamePool} reference.
+	 * Obfuscated names are unique, adding an existing one replaces the other names of its row.
+	 * The deobf and srg indices always point at the most recently added row carrying that name.
+	 */
+	protected static class Column {
+		private static final long[] EMPTY = new long[0];
+		private static final int[] EMPTY_ROWS = new int[0];
+
+		protected final NamePool pool;
+
+		protected final Keys obf;
+		protected final Keys srg;
+		protected final Keys deobf;
+		protected int size = 0;
+		private int capacity = 0;
+
+		protected Column(NamePool pool, boolean searge) {
+			this.pool = pool;
+			obf = new Keys();
+			deobf = new Keys();
+			srg = searge ? new Keys() : null;
+		}
+
+		protected int findObf(CharSequence key) {
+			return obf.find(key);
+		}
+
+		protected int findSrg(CharSequence key) {
+			return srg == null ? findDeobf(key) : srg.find(key);
+		}
+
+		protected int findDeobf(CharSequence key) {
+			return deobf.find(key);
+		}
+
+		protected String obfAt(int row) {
+			return obf.name(row);
+		}
+
+		protected String srgAt(int row) {
+			return srg == null ? deobf.name(row) : srg.name(row);
+		}
+
+		protected String deobfAt(int row) {
+			return deobf.name(row);
+		}
+
+		protected void add(String obfName, String srgName, String deobfName) {
+			int row = findObf(obfName);
+			if (row >= 0) {
+				deobf.unlink(row);
+				if (srg != null) srg.unlink(row);
+			} else {
+				row = size++;
+				if (row == capacity) grow(Math.max(16, row + (row >>> 1)));
+				obf.keys[row] = pool.intern(obfName);
+				obf.link(row);
+			}
+			deobf.keys[row] = pool.intern(deobfName);
+			deobf.link(row);
+			if (srg != null) {
+				srg.keys[row] = srgName.equals(deobfName) ? deobf.keys[row] : pool.intern(srgName);
+				srg.link(row);
+			}
+		}
+
+		/**
+		 * Removes a row, moving the last row into its place.
+		 */
+		protected void remove(int row) {
+			obf.unlink(row);
+			deobf.unlink(row);
+			if (srg != null) srg.unlink(row);
+			int last = --size;
+			if (row != last) {
+				obf.move(last, row);
+				deobf.move(last, row);
+				if (srg != null) srg.move(last, row);
+			}
+		}
+
+		/**
+		 * Sizes the arrays and indices of this column to hold the given number of rows without growing.
+		 */
+		protected void reserve(int rows) {
+			if (rows > capacity) grow(rows);
+			obf.index.ensureCapacity(rows);
+			deobf.index.ensureCapacity(rows);
+			if (srg != null) srg.index.ensureCapacity(rows);
+		}
+
+		private void grow(int capacity) {
+			this.capacity = capacity;
+			obf.grow(capacity);
+			deobf.grow(capacity);
+			if (srg != null) srg.grow(capacity);
+		}
+
+		/**
+		 * One key column with its hash index, plus an index grouping the indexed rows by the owner of their key.
+		 * Owner groups are doubly linked lists threaded through the rows, headed by the most recently linked row.
+		 */
+		protected final class Keys implements RowIndex.Rows {
+			protected long[] keys = EMPTY;
+			protected final RowIndex index = new RowIndex(this, 0);
+
+			/**
+			 * The number of rows whose key the index resolves to another row.
+			 */
+			private int shadowed;
+
+			private int[] nextInOwner = EMPTY_ROWS;
+			private int[] previousInOwner = EMPTY_ROWS;
+			private final RowIndex owners = new RowIndex(new RowIndex.Rows() {
+				public int hashOf(int row) {
+					return pool.owner(keys[row]);
+				}
+			}, 0);
+
+			public int hashOf(int row) {
+				return pool.hash(keys[row]);
+			}
+
+			protected String name(int row) {
+				return pool.toString(keys[row]);
+			}
+
+			/**
+			 * Gets the row the index resolves a key to, or -1 if there is none.
+			 */
+			protected int find(CharSequence key) {
+				int hash = MemberKey.hashOf(key);
+				for (int slot = index.slot(hash); ; slot = index.next(slot)) {
+					int row = index.row(slot);
+					if (row < 0 || pool.matches(keys[row], key)) return row;
+				}
+			}
+
+			/**
+			 * Checks if the index resolves the key of a row to that row.  Pooled keys are equal exactly when their references are.
+			 */
+			protected boolean indexed(int row) {
+				long key = keys[row];
+				for (int slot = index.slot(pool.hash(key)); ; slot = index.next(slot)) {
+					int existing = index.row(slot);
+					if (existing < 0) return false;
+					if (keys[existing] == key) return existing == row;
+				}
+			}
+
+			/**
+			 * Gets the distinct keys held by the index.
+			 */
+			protected String[] distinct() {
+				String[] result = new String[index.size()];
+				int count = 0;
+				for (int row = 0; row < size; row++) {
+					if (indexed(row)) result[count++] = name(row);
+				}
+				return result;
+			}
+
+			/**
+			 * Gets the distinct keys owned by the given owner.
+			 *
+			 * @param owner	Name of the owning class or package
+			 */
+			protected String[] members(String owner) {
+				int node = pool.findNode(owner);
+				int first = node < 0 ? -1 : ownerHead(node);
+				int second = owner.isEmpty() ? ownerHead(-1) : -1;
+				int count = 0;
+				for (int row = first; row >= 0; row = nextInOwner[row]) count++;
+				for (int row = second; row >= 0; row = nextInOwner[row]) count++;
+				String[] result = new String[count];
+				count = 0;
+				for (int row = first; row >= 0; row = nextInOwner[row]) result[count++] = name(row);
+				for (int row = second; row >= 0; row = nextInOwner[row]) result[count++] = name(row);
+				return result;
+			}
+
+			/**
+			 * Makes the index resolve the key of a row to that row, replacing whichever row it previously resolved to.
+			 */
+			protected void link(int row) {
+				long key = keys[row];
+				int hash = pool.hash(key);
+				for (int slot = index.slot(hash); ; slot = index.next(slot)) {
+					int existing = index.row(slot);
+					if (existing < 0) {
+						index.insert(hash, row);
+						break;
+					}
+					if (keys[existing] == key) {
+						index.set(slot, row);
+						unlinkOwner(existing);
+						shadowed++;
+						break;
+					}
+				}
+				linkOwner(row);
+			}
+
+			/**
+			 * Takes the key of a row out of use.  If the index resolves the key to that row it is pointed at another row with the same key, if any.
+			 */
+			protected void unlink(int row) {
+				if (!indexed(row)) {
+					shadowed--;
+					return;
+				}
+				remove(row);
+				if (shadowed == 0) return;
+				long key = keys[row];
+				for (int other = size - 1; other >= 0; other--) {
+					if (other != row && keys[other] == key) {
+						link(other);
+						shadowed--;
+						return;
+					}
+				}
+			}
+
+			/**
+			 * Moves the key of a row to another, unused row, keeping the index pointing at it if it did before.
+			 */
+			protected void move(int from, int to) {
+				boolean linked = indexed(from);
+				if (linked) remove(from);
+				keys[to] = keys[from];
+				if (linked) link(to);
+			}
+
+			/**
+			 * Removes an indexed row from the index.
+			 */
+			private void remove(int row) {
+				index.remove(pool.hash(keys[row]), row);
+				unlinkOwner(row);
+			}
+
+			private void grow(int capacity) {
+				keys = Arrays.copyOf(keys, capacity);
+				nextInOwner = Arrays.copyOf(nextInOwner, capacity);
+				previousInOwner = Arrays.copyOf(previousInOwner, capacity);
+			}
+
+			private int ownerHead(int owner) {
+				for (int slot = owners.slot(owner); ; slot = owners.next(slot)) {
+					int row = owners.row(slot);
+					if (row < 0 || pool.owner(keys[row]) == owner) return row;
+				}
+			}
+
+			private void linkOwner(int row) {
+				int owner = pool.owner(keys[row]);
+				previousInOwner[row] = -1;
+				for (int slot = owners.slot(owner); ; slot = owners.next(slot)) {
+					int head = owners.row(slot);
+					if (head < 0) {
+						nextInOwner[row] = -1;
+						owners.insert(owner, row);
+						return;
+					}
+					if (pool.owner(keys[head]) == owner) {
+						nextInOwner[row] = head;
+						previousInOwner[head] = row;
+						owners.set(slot, row);
+						return;
+					}
+				}
+			}
+
+			/**
+			 * Removes a linked row from its owner group.
+			 */
+			private void unlinkOwner(int row) {
+				int previous = previousInOwner[row];
+				int next = nextInOwner[row];
+				if (next >= 0) previousInOwner[next] = previous;
+				if (previous >= 0) {
+					nextInOwner[previous] = next;
+					return;
+				}
+				int owner = pool.owner(keys[row]);
+				for (int slot = owners.slot(owner); ; slot = owners.next(slot)) {
+					int head = owners.row(slot);
+					if (head < 0) return;
+					if (head != row) continue;
+					if (next >= 0) {
+						owners.set(slot, next);
+					} else {
+						owners.remove(owner, row);
+					}
+					return;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+
+/**
+ * OBFTable that adds support for a third "searge" obfuscation name.  Based on ColumnarOBFTable.
+ */
+public class ColumnarOBFTableSRG extends ColumnarOBFTable implements OBFTableSRG {
+
+	public ColumnarOBFTableSRG() {
+		super();
+	}
+
+	public ColumnarOBFTableSRG(NamePool pool) {
+		super(pool);
+	}
+
+	public String getObfFromSRG(String searge, TargetType type) {
+		Column column = getColumn(type);
+		int row = column.findSrg(searge);
+		return row < 0 ? null : column.obfAt(row);
+	}
+
+	public String getDeObfFromSRG(String searge, TargetType type) {
+		Column column = getColumn(type);
+		int row = column.findSrg(searge);
+		return row < 0 ? null : column.deobfAt(row);
+	}
+
+	public String getSRGFromObf(String obf, TargetType type) {
+		Column column = getColumn(type);
+		int row = column.findObf(obf);
+		return row < 0 ? null : column.srgAt(row);
+	}
+
+	public String getSRGFromDeObf(String deobf, TargetType type) {
+		Column column = getColumn(type);
+		int row = column.findDeobf(deobf);
+		return row < 0 ? null : column.srgAt(row);
+	}
+
+	public boolean hasSRG(String srgName, TargetType type) {
+		Column column = columns[type.ordinal()];
+		return column != null && column.findSrg(srgName) >= 0;
+	}
+
+	public String[] getAllSRG(TargetType type) {
+		Column column = getColumn(type);
+		return column.srg.distinct();
+	}
+
+	public String[] getSRGMembers(String srgOwner, TargetType type) {
+		Column column = getColumn(type);
+		return column.srg.members(srgOwner);
+	}
+
+	public void addType(String obfName, String deObfName, TargetType type) {
+		addTypeSRG(obfName, deObfName, deObfName, type);
+	}
+
+	public void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+		getOrCreateColumn(type).add(obfName, seargeName, deObfName);
+		modCount++;
+	}
+
+	/**
+	 * Creates a read-only snapshot of this table.
+	 */
+	@Override
+	public FrozenOBFTableSRG freeze() {
+		return new FrozenOBFTableSRG(this);
+	}
+
+	@Override
+	protected Column createColumn() {
+		return new Column(pool, true);
+	}
+}
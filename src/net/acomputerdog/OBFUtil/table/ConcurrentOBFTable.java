@@ -0,0 +1,215 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
+import net.acomputerdog.OBFUtil.map.TargetType;
+
+/**
+ * A thread-safe implementation of OBFTable.
+ * <p>
+ * Lookups never lock and may run on any number of threads while the table is being filled.
+ * Writes are safe to issue from multiple threads at once.  Writes to the same obfuscated name are serialised
+ * on one of a fixed set of lock stripes so that the obf, srg and deobf indices stay consistent with each other,
+ * writes to different names proceed in parallel.
+ */
+public class ConcurrentOBFTable implements OBFTable {
+	private static final int STRIPES = 64;
+
+	protected final Mapping[] mappings = new Mapping[TargetType.values().length];
+	private final Object[] locks = new Object[STRIPES];
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicInteger modCount = new AtomicInteger();
+
+	public ConcurrentOBFTable() {
+		this(false);
+	}
+
+	protected ConcurrentOBFTable(boolean searge) {
+		for (int i = 0; i < mappings.length; i++) mappings[i] = new Mapping(searge);
+		for (int i = 0; i < locks.length; i++) locks[i] = new Object();
+	}
+
+	public String deobf(String obfName, TargetType type) {
+		Entry entry = getMapping(type).obfuscated.get(obfName);
+		return entry == null ? null : entry.deobf;
+	}
+
+	public String obf(String deobfName, TargetType type) {
+		Entry entry = getMapping(type).deobfuscated.get(deobfName);
+		return entry == null ? null : entry.obf;
+	}
+
+	public boolean hasObf(String obfName, TargetType type) {
+		return mappings[type.ordinal()].obfuscated.containsKey(obfName);
+	}
+
+	public boolean hasDeobf(String deobfName, TargetType type) {
+		return mappings[type.ordinal()].deobfuscated.containsKey(deobfName);
+	}
+
+	public boolean supportsType(TargetType type) {
+		return !mappings[type.ordinal()].obfuscated.isEmpty();
+	}
+
+	public String[] getAllObf(TargetType type) {
+		return getMapping(type).obfuscated.keySet().toArray(new String[0]);
+	}
+
+	public String[] getAllDeobf(TargetType type) {
+		return getMapping(type).deobfuscated.keySet().toArray(new String[0]);
+	}
+
+	public <E extends Exception> void forEach(TargetType type, EntryVisitor<E> visitor) throws E {
+		for (Entry entry : getMapping(type).obfuscated.values()) {
+			visitor.visit(entry.obf, entry.srg, entry.deobf);
+		}
+	}
+
+	/**
+	 * Gets a Spliterator over the entries of a TargetType.
+	 * Unlike other tables this one may be used while the table is being modified, it reflects some state of each entry at or after its creation.
+	 */
+	public Spliterator<ObfMapSrg.Entry> spliterator(TargetType type) {
+		return new EntrySpliterator<Entry>(getMapping(type).obfuscated.values().spliterator());
+	}
+
+	public void addType(String obfName, String deObfName, TargetType type) {
+		add(new Entry(obfName, deObfName, deObfName), type);
+	}
+
+	public void writeToTable(OBFTable table, boolean overwrite) {
+		OBFTableSRG srgTable = table instanceof OBFTableSRG && this instanceof OBFTableSRG ? (OBFTableSRG)table : null;
+		for (TargetType type : TargetType.values()) {
+			table.ensureCapacity(type, mappings[type.ordinal()].obfuscated.size());
+			for (Entry entry : mappings[type.ordinal()].obfuscated.values()) {
+				if (overwrite || !table.hasObf(entry.obf, type)) {
+					if (srgTable != null) {
+						srgTable.addTypeSRG(entry.obf, entry.srg, entry.deobf, type);
+					} else {
+						table.addType(entry.obf, entry.deobf, type);
+					}
+				}
+			}
+		}
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	public int getModCount() {
+		return modCount.get();
+	}
+
+	protected void add(Entry entry, TargetType type) {
+		Mapping mapping = mappings[type.ordinal()];
+		synchronized (locks[(entry.obf.hashCode() & Integer.MAX_VALUE) % STRIPES]) {
+			Entry old = mapping.obfuscated.put(entry.obf, entry);
+			boolean deobfFreed = false;
+			boolean srgFreed = false;
+			if (old == null) {
+				size.incrementAndGet();
+			} else {
+				deobfFreed = mapping.deobfuscated.remove(old.deobf, old);
+				srgFreed = mapping.searge != null && mapping.searge.remove(old.srg, old);
+			}
+			index(mapping, mapping.deobfuscated, entry.deobf, entry);
+			if (mapping.searge != null) index(mapping, mapping.searge, entry.srg, entry);
+			if (deobfFreed) relink(mapping, mapping.deobfuscated, old.deobf, false);
+			if (srgFreed) relink(mapping, mapping.searge, old.srg, true);
+			modCount.incrementAndGet();
+		}
+	}
+
+	public boolean removeObf(String obfName, TargetType type) {
+		Mapping mapping = mappings[type.ordinal()];
+		synchronized (locks[(obfName.hashCode() & Integer.MAX_VALUE) % STRIPES]) {
+			Entry old = mapping.obfuscated.remove(obfName);
+			if (old == null) return false;
+			if (mapping.deobfuscated.remove(old.deobf, old)) relink(mapping, mapping.deobfuscated, old.deobf, false);
+			if (mapping.searge != null && mapping.searge.remove(old.srg, old)) relink(mapping, mapping.searge, old.srg, true);
+			size.decrementAndGet();
+			modCount.incrementAndGet();
+			return true;
+		}
+	}
+
+	/**
+	 * Puts an entry into a reverse index, noting if it takes the place of another entry with the same name.
+	 */
+	private static void index(Mapping mapping, ConcurrentMap<String, Entry> index, String name, Entry entry) {
+		Entry previous = index.put(name, entry);
+		if (previous != null && previous != entry) mapping.aliased = true;
+	}
+
+	/**
+	 * Points a reverse index at a remaining entry with the given name, after the entry it held for the name was removed.
+	 * Does nothing if another entry has been put there in the meantime.
+	 */
+	private static void relink(Mapping mapping, ConcurrentMap<String, Entry> index, String name, boolean searge) {
+		if (!mapping.aliased) return;
+		for (Entry other : mapping.obfuscated.values()) {
+			if (!name.equals(searge ? other.srg : other.deobf)) continue;
+			if (index.putIfAbsent(name, other) != null) return;
+			if (mapping.obfuscated.get(other.obf) == other) return;
+			// Removed while it was being linked, try the next one
+			index.remove(name, other);
+		}
+	}
+
+	/**
+	 * Gets the mapping holding entries for the given type.
+	 *
+	 * @throws IllegalArgumentException if this table has no entries of that type.
+	 */
+	protected Mapping getMapping(TargetType type) {
+		Mapping mapping = mappings[type.ordinal()];
+		if (mapping.obfuscated.isEmpty()) throw new IllegalArgumentException("Unknown target type: " + type.name());
+		return mapping;
+	}
+
+	protected static class Mapping {
+		protected final ConcurrentMap<String, Entry> obfuscated = new ConcurrentHashMap<String, Entry>();
+		protected final ConcurrentMap<String, Entry> deobfuscated = new ConcurrentHashMap<String, Entry>();
+		protected final ConcurrentMap<String, Entry> searge;
+		/**
+		 * Set once two entries have had the same deobf or srg name, until then removals need not look for another entry to index.
+		 */
+		protected volatile boolean aliased;
+
+		protected Mapping(boolean searge) {
+			this.searge = searge ? new ConcurrentHashMap<String, Entry>() : null;
+		}
+	}
+
+	/**
+	 * An immutable mapping, safely published to readers through the maps holding it.
+	 */
+	protected static final class Entry implements ObfMapSrg.Entry {
+		protected final String obf;
+		protected final String srg;
+		protected final String deobf;
+
+		protected Entry(String obf, String srg, String deobf) {
+			this.obf = obf;
+			this.srg = srg;
+			this.deobf = deobf;
+		}
+
+		public String obf() {
+			return obf;
+		}
+
+		public String srg() {
+			return srg;
+		}
+
+		public String deObf() {
+			return deobf;
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+
+/**
+ * OBFTable that adds support for a third "searge" obfuscation name.  Based on ConcurrentOBFTable.
+ */
+public class ConcurrentOBFTableSRG extends ConcurrentOBFTable implements OBFTableSRG {
+
+	public ConcurrentOBFTableSRG() {
+		super(true);
+	}
+
+	public String getObfFromSRG(String searge, TargetType type) {
+		Entry entry = getMapping(type).searge.get(searge);
+		return entry == null ? null : entry.obf;
+	}
+
+	public String getDeObfFromSRG(String searge, TargetType type) {
+		Entry entry = getMapping(type).searge.get(searge);
+		return entry == null ? null : entry.deobf;
+	}
+
+	public String getSRGFromObf(String obf, TargetType type) {
+		Entry entry = getMapping(type).obfuscated.get(obf);
+		return entry == null ? null : entry.srg;
+	}
+
+	public String getSRGFromDeObf(String deobf, TargetType type) {
+		Entry entry = getMapping(type).deobfuscated.get(deobf);
+		return entry == null ? null : entry.srg;
+	}
+
+	public boolean hasSRG(String srgName, TargetType type) {
+		return mappings[type.ordinal()].searge.containsKey(srgName);
+	}
+
+	public String[] getAllSRG(TargetType type) {
+		return getMapping(type).searge.keySet().toArray(new String[0]);
+	}
+
+	public void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+		add(new Entry(obfName, seargeName, deObfName), type);
+	}
+}
@@ -1,26 +1,33 @@
 package net.acomputerdog.OBFUtil.table;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.Spliterator;
 
 import net.acomputerdog.OBFUtil.map.ObfMap;
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
 import net.acomputerdog.OBFUtil.map.TargetType;
 import net.acomputerdog.OBFUtil.map.TargetTypeMap;
 
 /**
  * A simple, direct implementation of OBFTable.  Uses HashMaps and ArrayLists to store data.
+ * Not thread-safe, use a ConcurrentOBFTable for tables shared between threads.
  */
 public class DirectOBFTable<P extends ObfMap.Entry, T extends ObfMap<P>> implements OBFTable {
 	protected final TargetTypeMap<T> tableMappings = new TargetTypeMap<T>();
-	private int size = 0;
+	private int modCount = 0;
 	
     public String deobf(String obfName, TargetType type) {
-		return tableMappings.getChecked(type).byObf(obfName).deObf();
+    	P entry = tableMappings.getChecked(type).byObf(obfName);
+		return entry == null ? null : entry.deObf();
     }
     
     public String obf(String deobfName, TargetType type) {
-		return tableMappings.getChecked(type).byDeobf(deobfName).obf();
+    	P entry = tableMappings.getChecked(type).byDeobf(deobfName);
+		return entry == null ? null : entry.obf();
     }
         
     public boolean hasObf(String obfName, TargetType type) {
@@ -43,8 +50,24 @@ public class DirectOBFTable<P extends ObfMap.Entry, T extends ObfMap<P>> impleme
     	return tableMappings.getChecked(type).getAllDeObf();
     }
     
+    public String[] getObfMembers(String obfOwner, TargetType type) {
+    	return tableMappings.getChecked(type).getObfMembers(obfOwner);
+    }
+    
+    public String[] getDeobfMembers(String deobfOwner, TargetType type) {
+    	return tableMappings.getChecked(type).getDeObfMembers(deobfOwner);
+    }
+    
+    public <E extends Exception> void forEach(TargetType type, EntryVisitor<E> visitor) throws E {
+    	tableMappings.getChecked(type).visit(visitor);
+    }
+    
+    public Spliterator<ObfMapSrg.Entry> spliterator(TargetType type) {
+    	return new EntrySpliterator<P>(tableMappings.getChecked(type).spliterator());
+    }
+    
     protected void preAdd(TargetType type) {
-    	size++;
+    	modCount++;
     	if (!tableMappings.containsKey(type)) tableMappings.put(type, createMap());
     }
     
@@ -58,6 +81,39 @@ public class DirectOBFTable<P extends ObfMap.Entry, T extends ObfMap<P>> impleme
     	tableMappings.get(type).add(obfName, deObfName);
     }
     
+    public void ensureCapacity(TargetType type, int additional) {
+    	if (additional <= 0) return;
+    	if (!tableMappings.containsKey(type)) tableMappings.put(type, createMap());
+    	tableMappings.get(type).ensureCapacity(additional);
+    }
+    
+    public void addAll(MappingBatch batch, boolean overwrite) {
+    	for (TargetType type : TargetType.values()) {
+    		int count = batch.size(type);
+    		if (count == 0) continue;
+    		ensureCapacity(type, count);
+    		T mapping = tableMappings.get(type);
+    		for (int i = 0; i < count; i++) {
+    			String obf = batch.getObf(type, i);
+    			if (overwrite || !mapping.hasObf(obf)) {
+    				modCount++;
+    				addEntry(mapping, obf, batch.getSRG(type, i), batch.getDeobf(type, i));
+    			}
+    		}
+    	}
+    }
+    
+    protected void addEntry(T mapping, String obfName, String seargeName, String deObfName) {
+    	mapping.add(obfName, deObfName);
+    }
+    
+    public boolean removeObf(String obfName, TargetType type) {
+    	T mapping = tableMappings.get(type);
+    	if (mapping == null || mapping.remove(obfName) == null) return false;
+    	modCount++;
+    	return true;
+    }
+    
     public void writeToTable(OBFTable table, boolean overwrite) {
     	for (Entry<TargetType, T> i : tableMappings.entrySet()) {
     		i.getValue().write(table, overwrite, i.getKey());
@@ -65,13 +121,38 @@ public class DirectOBFTable<P extends ObfMap.Entry, T extends ObfMap<P>> impleme
     }
     
     public int size() {
+    	int size = 0;
+    	for (T mapping : tableMappings.values()) size += mapping.size();
     	return size;
     }
     
+    public int getModCount() {
+    	return modCount;
+    }
+    
+    /**
+     * Creates a read-only snapshot of this table.
+     */
+    public FrozenOBFTable freeze() {
+    	return new FrozenOBFTable(this);
+    }
+    
     public class Mapping implements ObfMap<P> {
     	
-    	protected final Map<String, P> obfuscated = new HashMap<String, P>(); 
-    	protected final Map<String, P> deobfuscated = new HashMap<String, P>();
+    	protected Map<String, P> obfuscated = new HashMap<String, P>(); 
+    	protected Map<String, P> deobfuscated = new HashMap<String, P>();
+    	private int reserved = 0;
+    	/**
+    	 * The number of entries a lookup map holds another entry for, because both have the same name.
+    	 */
+    	protected int shadowed = 0;
+    	
+    	protected final Map<String, Set<String>> obfuscatedByOwner = new HashMap<String, Set<String>>();
+    	protected final Map<String, Set<String>> deobfuscatedByOwner = new HashMap<String, Set<String>>();
+    	
+    	public int size() {
+    		return obfuscated.size();
+    	}
     	
     	public String[] getAllObf() {
     		return obfuscated.keySet().toArray(new String[obfuscated.size()]);
@@ -97,17 +178,124 @@ public class DirectOBFTable<P extends ObfMap.Entry, T extends ObfMap<P>> impleme
 			return deobfuscated.containsKey(deobf);
 		}
 		
+		public String[] getObfMembers(String obfOwner) {
+			return members(obfuscatedByOwner, obfOwner);
+		}
+		
+		public String[] getDeObfMembers(String deobfOwner) {
+			return members(deobfuscatedByOwner, deobfOwner);
+		}
+		
+		public void ensureCapacity(int additional) {
+			int expected = obfuscated.size() + additional;
+			if (expected > reserved) {
+				reserved = expected;
+				resize(expected);
+			}
+		}
+		
+		/**
+		 * Replaces the lookup maps with ones sized to hold the given number of entries.
+		 * HashMaps can not be grown in place, so this costs a single rehash of the existing entries instead of one per doubling.
+		 */
+		protected void resize(int expected) {
+			obfuscated = presize(obfuscated, expected);
+			deobfuscated = presize(deobfuscated, expected);
+		}
+		
+		protected Map<String, P> presize(Map<String, P> map, int expected) {
+			Map<String, P> result = new HashMap<String, P>(expected * 4 / 3 + 1);
+			result.putAll(map);
+			return result;
+		}
+		
 		@SuppressWarnings("unchecked")
 		public void add(String obf, String deobf) {
 			add((P)new ObfEntry(obf, deobf));
 		}
 		
 		protected void add(P entry) {
-			obfuscated.put(entry.obf(), entry);
-			deobfuscated.put(entry.deObf(), entry);
+			if (obfuscated.containsKey(entry.obf())) remove(entry.obf());
+			index(obfuscated, obfuscatedByOwner, entry.obf(), entry);
+			index(deobfuscated, deobfuscatedByOwner, entry.deObf(), entry);
+		}
+		
+		/**
+		 * Puts an entry into one of the lookup maps, keeping the matching owner index in step.
+		 */
+		protected void index(Map<String, P> map, Map<String, Set<String>> byOwner, String key, P entry) {
+			P previous = map.put(key, entry);
+			if (previous == null) {
+				String owner = MappingHierarchy.getOwner(key);
+				Set<String> members = byOwner.get(owner);
+				if (members == null) byOwner.put(owner, members = new LinkedHashSet<String>());
+				members.add(key);
+			} else if (previous != entry) {
+				shadowed++;
+			}
+		}
+		
+		public P remove(String obf) {
+			P entry = obfuscated.get(obf);
+			if (entry != null) {
+				unindex(obfuscated, obfuscatedByOwner, obf, entry);
+				if (unindex(deobfuscated, deobfuscatedByOwner, entry.deObf(), entry) && shadowed > 0) {
+					for (P other : obfuscated.values()) {
+						if (other.deObf().equals(entry.deObf())) {
+							relink(deobfuscated, deobfuscatedByOwner, other.deObf(), other);
+							break;
+						}
+					}
+				}
+			}
+			return entry;
+		}
+		
+		/**
+		 * Takes an entry out of one of the lookup maps if it is the one the map holds for its key.
+		 *
+		 * @return True if the map no longer holds an entry for the key, so another entry with the same name should take its place.
+		 */
+		protected boolean unindex(Map<String, P> map, Map<String, Set<String>> byOwner, String key, P entry) {
+			if (map.get(key) != entry) {
+				shadowed--;
+				return false;
+			}
+			map.remove(key);
+			Set<String> members = byOwner.get(MappingHierarchy.getOwner(key));
+			if (members != null) members.remove(key);
+			return true;
+		}
+		
+		/**
+		 * Puts a shadowed entry back into a lookup map after the entry that shadowed it was removed.
+		 */
+		protected void relink(Map<String, P> map, Map<String, Set<String>> byOwner, String key, P entry) {
+			index(map, byOwner, key, entry);
+			shadowed--;
+		}
+		
+		protected String[] members(Map<String, Set<String>> byOwner, String owner) {
+			Set<String> members = byOwner.get(owner);
+			return members == null ? new String[0] : members.toArray(new String[members.size()]);
+		}
+		
+		public <E extends Exception> void visit(EntryVisitor<E> visitor) throws E {
+			for (P entry : obfuscated.values()) {
+				visitor.visit(entry.obf(), srgOf(entry), entry.deObf());
+			}
+		}
+		
+		public Spliterator<P> spliterator() {
+			return obfuscated.values().spliterator();
+		}
+		
+		protected String srgOf(P entry) {
+			return entry.deObf();
 		}
 		
 		public void write(OBFTable table, boolean overwrite, TargetType type) {
+			table.ensureCapacity(type, obfuscated.size());
 			for (Map.Entry<String, P> i : obfuscated.entrySet()) {
 	            if (overwrite || !table.hasObf(i.getKey(), type)) {
 	            	table.addType(i.getKey(), i.getValue().deObf(), type);
@@ -2,6 +2,7 @@ package net.acomputerdog.OBFUtil.table;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import net.acomputerdog.OBFUtil.map.ObfMapSrg;
 import net.acomputerdog.OBFUtil.map.TargetType;
@@ -12,19 +13,23 @@ import net.acomputerdog.OBFUtil.map.TargetType;
 public class DirectOBFTableSRG<P extends ObfMapSrg.Entry, T extends ObfMapSrg<P>> extends DirectOBFTable<P, T> implements OBFTableSRG {
 	
     public String getObfFromSRG(String searge, TargetType type) {
-    	return tableMappings.getChecked(type).bySrg(searge).obf();
+    	P entry = tableMappings.getChecked(type).bySrg(searge);
+    	return entry == null ? null : entry.obf();
     }
     
     public String getDeObfFromSRG(String searge, TargetType type) {
-    	return tableMappings.getChecked(type).bySrg(searge).deObf();
+    	P entry = tableMappings.getChecked(type).bySrg(searge);
+    	return entry == null ? null : entry.deObf();
     }
     
     public String getSRGFromObf(String obf, TargetType type) {
-    	return tableMappings.getChecked(type).byObf(obf).srg();
+    	P entry = tableMappings.getChecked(type).byObf(obf);
+    	return entry == null ? null : entry.srg();
     }
     
     public String getSRGFromDeObf(String deobf, TargetType type) {
-    	return tableMappings.getChecked(type).byDeobf(deobf).srg();
+    	P entry = tableMappings.getChecked(type).byDeobf(deobf);
+    	return entry == null ? null : entry.srg();
     }
     
     public boolean hasSRG(String srgName, TargetType type) {
@@ -35,11 +40,22 @@ public class DirectOBFTableSRG<P extends ObfMapSrg.Entry, T extends ObfMapSrg<P>
     	return tableMappings.getChecked(type).getAllSrg();
     }
     
+    public String[] getSRGMembers(String srgOwner, TargetType type) {
+    	return tableMappings.getChecked(type).getSrgMembers(srgOwner);
+    }
+    
     @SuppressWarnings("unchecked")
 	protected T createMap() {
     	return (T)new MappingSrg();
     }
     
+    /**
+     * Creates a read-only snapshot of this table.
+     */
+    public FrozenOBFTableSRG freeze() {
+    	return new FrozenOBFTableSRG(this);
+    }
+    
     public void addType(String obfName, String deObfName, TargetType type) {
         addTypeSRG(obfName, deObfName, deObfName, type);
     }
@@ -49,9 +65,14 @@ public class DirectOBFTableSRG<P extends ObfMapSrg.Entry, T extends ObfMapSrg<P>
     	tableMappings.get(type).add(obfName, deObfName, seargeName);
     }
     
+    protected void addEntry(T mapping, String obfName, String seargeName, String deObfName) {
+    	mapping.add(obfName, deObfName, seargeName);
+    }
+    
     public class MappingSrg extends Mapping implements ObfMapSrg<P> {
     	
-    	protected final Map<String, P> searge = new HashMap<String, P>();
+    	protected Map<String, P> searge = new HashMap<String, P>();
+    	protected final Map<String, Set<String>> seargeByOwner = new HashMap<String, Set<String>>();
     	
 		public String[] getAllSrg() {
 			return searge.keySet().toArray(new String[searge.size()]);
@@ -65,6 +86,10 @@ public class DirectOBFTableSRG<P extends ObfMapSrg.Entry, T extends ObfMapSrg<P>
 			return searge.containsKey(srg);
 		}
 		
+		public String[] getSrgMembers(String srgOwner) {
+			return members(seargeByOwner, srgOwner);
+		}
+		
 		@SuppressWarnings("unchecked")
 		public void add(String obf, String deobf, String srg) {
 			add((P)new ObfEntrySrg(obf, deobf, srg));
@@ -74,9 +99,31 @@ public class DirectOBFTableSRG<P extends ObfMapSrg.Entry, T extends ObfMapSrg<P>
 			add(obf, deobf, deobf);
 		}
     	
+		protected void resize(int expected) {
+			super.resize(expected);
+			searge = presize(searge, expected);
+		}
+		
+		protected String srgOf(P entry) {
+			return entry.srg();
+		}
+		
 		protected void add(P entry) {
 			super.add(entry);
-			searge.put(entry.srg(), entry);
+			index(searge, seargeByOwner, entry.srg(), entry);
+		}
+		
+		public P remove(String obf) {
+			P entry = super.remove(obf);
+			if (entry != null && unindex(searge, seargeByOwner, entry.srg(), entry) && shadowed > 0) {
+				for (P other : obfuscated.values()) {
+					if (other.srg().equals(entry.srg())) {
+						relink(searge, seargeByOwner, other.srg(), other);
+						break;
+					}
+				}
+			}
+			return entry;
 		}
     }
     
@@ -0,0 +1,53 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import net.acomputerdog.OBFUtil.map.ObfMap;
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
+
+/**
+ * Adapts a spliterator over the values of an obf keyed map to one over table entries.
+ * Values without a searge name are given their deobfuscated name instead.
+ */
+final class EntrySpliterator<P extends ObfMap.Entry> implements Spliterator<ObfMapSrg.Entry> {
+	private final Spliterator<P> source;
+
+	EntrySpliterator(Spliterator<P> source) {
+		this.source = source;
+	}
+
+	public boolean tryAdvance(final Consumer<? super ObfMapSrg.Entry> action) {
+		return source.tryAdvance(new Consumer<P>() {
+			public void accept(P entry) {
+				action.accept(convert(entry));
+			}
+		});
+	}
+
+	public void forEachRemaining(final Consumer<? super ObfMapSrg.Entry> action) {
+		source.forEachRemaining(new Consumer<P>() {
+			public void accept(P entry) {
+				action.accept(convert(entry));
+			}
+		});
+	}
+
+	public Spliterator<ObfMapSrg.Entry> trySplit() {
+		Spliterator<P> prefix = source.trySplit();
+		return prefix == null ? null : new EntrySpliterator<P>(prefix);
+	}
+
+	public long estimateSize() {
+		return source.estimateSize();
+	}
+
+	public int characteristics() {
+		return (source.characteristics() | DISTINCT | NONNULL) & ~SORTED;
+	}
+
+	private static ObfMapSrg.Entry convert(ObfMap.Entry entry) {
+		if (entry instanceof ObfMapSrg.Entry) return (ObfMapSrg.Entry)entry;
+		return new MappingEntry(entry.obf(), entry.deObf(), entry.deObf());
+	}
+}
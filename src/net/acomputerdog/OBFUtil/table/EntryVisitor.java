@@ -0,0 +1,18 @@
+package net.acomputerdog.OBFUtil.table;
+
+/**
+ * Receives the entries of a table one at a time, see {@link OBFTable#forEach(net.acomputerdog.OBFUtil.map.TargetType, EntryVisitor)}.
+ *
+ * @param <E>	The type of exception the visitor may throw, so writers can pass IOExceptions straight through.
+ */
+public interface EntryVisitor<E extends Exception> {
+
+	/**
+	 * Called once for every entry.
+	 *
+	 * @param obf	The obfuscated name
+	 * @param srg	The searge name.  Tables that do not track searge names pass the deobfuscated name.
+	 * @param deobf	The deobfuscated name
+	 */
+	public void visit(String obf, String srg, String deobf) throws E;
+}
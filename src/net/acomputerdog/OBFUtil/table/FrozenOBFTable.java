@@ -0,0 +1,313 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
+import net.acomputerdog.OBFUtil.map.TargetType;
+
+/**
+ * A read-only snapshot of another OBFTable.
+ * <p>
+ * Entries are stored in compact arrays and looked up through minimal perfect hashes, with no resizing headroom.
+ * Entries of each TargetType are found by direct array access on the type's ordinal.
+ * Any attempt to modify a frozen table throws an UnsupportedOperationException.
+ */
+public class FrozenOBFTable implements OBFTable {
+	protected final Section[] sections = new Section[TargetType.values().length];
+	private final int size;
+
+	/**
+	 * Creates a snapshot of the current contents of a table.
+	 */
+	public FrozenOBFTable(OBFTable source) {
+		this(source, false);
+	}
+
+	protected FrozenOBFTable(OBFTable source, boolean searge) {
+		int size = 0;
+		for (TargetType type : TargetType.values()) {
+			if (source.supportsType(type)) {
+				Section section = new Section(source, type, searge);
+				sections[type.ordinal()] = section;
+				size += section.obf.length;
+			}
+		}
+		this.size = size;
+	}
+
+	public String deobf(String obfName, TargetType type) {
+		Section section = getSection(type);
+		int row = section.obfIndex.find(section.obf, obfName);
+		return row < 0 ? null : section.deobf[row];
+	}
+
+	public String obf(String deobfName, TargetType type) {
+		Section section = getSection(type);
+		int row = section.deobfIndex.find(section.deobf, deobfName);
+		return row < 0 ? null : section.obf[row];
+	}
+
+	@Override
+	public String deobf(MemberKey obfKey, TargetType type) {
+		Section section = getSection(type);
+		int row = section.obfIndex.find(section.obf, obfKey);
+		return row < 0 ? null : section.deobf[row];
+	}
+
+	@Override
+	public String obf(MemberKey deobfKey, TargetType type) {
+		Section section = getSection(type);
+		int row = section.deobfIndex.find(section.deobf, deobfKey);
+		return row < 0 ? null : section.obf[row];
+	}
+
+	public void addType(String obfName, String deObfName, TargetType type) {
+		throw new UnsupportedOperationException("Frozen tables cannot be modified");
+	}
+
+	public boolean hasObf(String obfName, TargetType type) {
+		Section section = sections[type.ordinal()];
+		return section != null && section.obfIndex.find(section.obf, obfName) >= 0;
+	}
+
+	public boolean hasDeobf(String deobfName, TargetType type) {
+		Section section = sections[type.ordinal()];
+		return section != null && section.deobfIndex.find(section.deobf, deobfName) >= 0;
+	}
+
+	public boolean supportsType(TargetType type) {
+		return sections[type.ordinal()] != null;
+	}
+
+	public String[] getAllObf(TargetType type) {
+		return getSection(type).obf.clone();
+	}
+
+	public String[] getAllDeobf(TargetType type) {
+		Section section = getSection(type);
+		return section.deobfIndex.keys(section.deobf);
+	}
+
+	public <E extends Exception> void forEach(TargetType type, EntryVisitor<E> visitor) throws E {
+		Section section = getSection(type);
+		for (int row = 0; row < section.obf.length; row++) {
+			visitor.visit(section.obf[row], section.srg == null ? section.deobf[row] : section.srg[row], section.deobf[row]);
+		}
+	}
+
+	public Spliterator<ObfMapSrg.Entry> spliterator(TargetType type) {
+		Section section = getSection(type);
+		return new SectionSpliterator(section, 0, section.obf.length);
+	}
+
+	public void writeToTable(OBFTable table, boolean overwrite) {
+		OBFTableSRG srgTable = table instanceof OBFTableSRG && this instanceof OBFTableSRG ? (OBFTableSRG)table : null;
+		for (TargetType type : TargetType.values()) {
+			Section section = sections[type.ordinal()];
+			if (section == null) continue;
+			table.ensureCapacity(type, section.obf.length);
+			for (int row = 0; row < section.obf.length; row++) {
+				if (overwrite || !table.hasObf(section.obf[row], type)) {
+					if (srgTable != null) {
+						srgTable.addTypeSRG(section.obf[row], section.srg[row], section.deobf[row], type);
+					} else {
+						table.addType(section.obf[row], section.deobf[row], type);
+					}
+				}
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Always 0, this table can not be modified.
+	 */
+	public int getModCount() {
+		return 0;
+	}
+
+	/**
+	 * Gets the section holding entries for the given type.
+	 *
+	 * @throws IllegalArgumentException if this table has no entries of that type.
+	 */
+	protected Section getSection(TargetType type) {
+		Section section = sections[type.ordinal()];
+		if (section == null) throw new IllegalArgumentException("Unknown target type: " + type.name());
+		return section;
+	}
+
+	private static final class SectionSpliterator extends RowSpliterator {
+		private final Section section;
+
+		SectionSpliterator(Section section, int origin, int fence) {
+			super(origin, fence);
+			this.section = section;
+		}
+
+		protected ObfMapSrg.Entry entry(int row) {
+			return new MappingEntry(section.obf[row], section.srg == null ? section.deobf[row] : section.srg[row], section.deobf[row]);
+		}
+
+		protected RowSpliterator range(int origin, int fence) {
+			return new SectionSpliterator(section, origin, fence);
+		}
+
+		public int characteristics() {
+			return super.characteristics() | IMMUTABLE;
+		}
+	}
+
+	/**
+	 * All entries of a single TargetType.  Row {@code i} of the obf, srg and deobf arrays together form one mapping.
+	 */
+	protected static class Section {
+		protected final String[] obf;
+		protected final String[] srg;
+		protected final String[] deobf;
+
+		protected final KeyIndex obfIndex;
+		protected final KeyIndex srgIndex;
+		protected final KeyIndex deobfIndex;
+
+		protected Section(OBFTable source, TargetType type, boolean searge) {
+			OBFTableSRG srgSource = searge && source instanceof OBFTableSRG ? (OBFTableSRG)source : null;
+			final List<String> obfs = new ArrayList<String>();
+			final List<String> srgs = new ArrayList<String>();
+			final List<String> deobfs = new ArrayList<String>();
+			source.forEach(type, new EntryVisitor<RuntimeException>() {
+				public void visit(String obf, String srg, String deobf) {
+					obfs.add(obf);
+					srgs.add(srg);
+					deobfs.add(deobf);
+				}
+			});
+			obf = obfs.toArray(new String[obfs.size()]);
+			deobf = deobfs.toArray(new String[deobfs.size()]);
+			srg = searge ? srgs.toArray(new String[srgs.size()]) : null;
+			int[] rows = new int[obf.length];
+			for (int row = 0; row < obf.length; row++) rows[row] = row;
+			obfIndex = new KeyIndex(obf, rows);
+			String[] deobfKeys = source.getAllDeobf(type);
+			String[] deobfOwners = new String[deobfKeys.length];
+			for (int i = 0; i < deobfKeys.length; i++) deobfOwners[i] = source.obf(deobfKeys[i], type);
+			deobfIndex = new KeyIndex(deobf, rowsOf(deobf, deobfKeys, deobfOwners));
+			if (srgSource != null) {
+				String[] srgKeys = srgSource.getAllSRG(type);
+				String[] srgOwners = new String[srgKeys.length];
+				for (int i = 0; i < srgKeys.length; i++) srgOwners[i] = srgSource.getObfFromSRG(srgKeys[i], type);
+				srgIndex = new KeyIndex(srg, rowsOf(srg, srgKeys, srgOwners));
+			} else {
+				srgIndex = deobfIndex;
+			}
+		}
+
+		/**
+		 * Resolves the rows that a set of secondary keys point to, dropping any key that does not lead back to a row carrying it.
+		 */
+		private int[] rowsOf(String[] column, String[] keys, String[] owners) {
+			int[] rows = new int[keys.length];
+			int count = 0;
+			for (int i = 0; i < keys.length; i++) {
+				int row = owners[i] == null ? -1 : obfIndex.find(obf, owners[i]);
+				if (row >= 0 && keys[i].equals(column[row])) rows[count++] = row;
+			}
+			return count == rows.length ? rows : Arrays.copyOf(rows, count);
+		}
+	}
+
+	/**
+	 * Lookup structure mapping keys of one column to their rows.
+	 * <p>
+	 * Keys are located through a minimal perfect hash over their distinct String hash codes.
+	 * The rare keys whose hash code is shared with another key are kept in a small array sorted by hash and found by binary search.
+	 */
+	protected static final class KeyIndex {
+		private final PerfectHash hash;
+		private final int[] slotRows;
+		private final int[] overflowHashes;
+		private final int[] overflowRows;
+
+		/**
+		 * Builds an index over the given rows of a column.
+		 *
+		 * @param keys	The column
+		 * @param rows	The rows to index, each carrying a distinct key
+		 */
+		KeyIndex(String[] keys, int[] rows) {
+			long[] sorted = new long[rows.length];
+			for (int i = 0; i < rows.length; i++) {
+				sorted[i] = ((long)keys[rows[i]].hashCode() << 32) | rows[i];
+			}
+			Arrays.sort(sorted);
+			int distinct = 0;
+			for (int i = 0; i < sorted.length; i++) {
+				if (i == 0 || hashOf(sorted[i]) != hashOf(sorted[i - 1])) distinct++;
+			}
+			int[] hashes = new int[distinct];
+			int[] primaryRows = new int[distinct];
+			overflowHashes = new int[sorted.length - distinct];
+			overflowRows = new int[sorted.length - distinct];
+			int primary = 0;
+			int overflow = 0;
+			for (int i = 0; i < sorted.length; i++) {
+				if (i == 0 || hashOf(sorted[i]) != hashOf(sorted[i - 1])) {
+					hashes[primary] = hashOf(sorted[i]);
+					primaryRows[primary++] = rowOf(sorted[i]);
+				} else {
+					overflowHashes[overflow] = hashOf(sorted[i]);
+					overflowRows[overflow++] = rowOf(sorted[i]);
+				}
+			}
+			hash = new PerfectHash(hashes);
+			slotRows = new int[distinct];
+			for (int i = 0; i < distinct; i++) {
+				slotRows[hash.slot(hashes[i])] = primaryRows[i];
+			}
+		}
+
+		/**
+		 * Gets the row holding a key, or -1 if the key is not present.
+		 */
+		int find(String[] keys, CharSequence key) {
+			if (slotRows.length == 0) return -1;
+			int h = MemberKey.hashOf(key);
+			int row = slotRows[hash.slot(h)];
+			if (keys[row].contentEquals(key)) return row;
+			if (overflowHashes.length > 0) {
+				int i = Arrays.binarySearch(overflowHashes, h);
+				if (i >= 0) {
+					while (i > 0 && overflowHashes[i - 1] == h) i--;
+					for (; i < overflowHashes.length && overflowHashes[i] == h; i++) {
+						if (keys[overflowRows[i]].contentEquals(key)) return overflowRows[i];
+					}
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Gets every key held by this index.
+		 */
+		String[] keys(String[] keys) {
+			String[] result = new String[slotRows.length + overflowRows.length];
+			for (int i = 0; i < slotRows.length; i++) result[i] = keys[slotRows[i]];
+			for (int i = 0; i < overflowRows.length; i++) result[slotRows.length + i] = keys[overflowRows[i]];
+			return result;
+		}
+
+		private static int hashOf(long packed) {
+			return (int)(packed >> 32);
+		}
+
+		private static int rowOf(long packed) {
+			return (int)packed;
+		}
+	}
+}
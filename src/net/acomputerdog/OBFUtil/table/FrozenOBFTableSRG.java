@@ -0,0 +1,55 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+
+/**
+ * Read-only snapshot of an OBFTableSRG.  Based on FrozenOBFTable.
+ */
+public class FrozenOBFTableSRG extends FrozenOBFTable implements OBFTableSRG {
+
+	/**
+	 * Creates a snapshot of the current contents of a table.
+	 * Entries of tables that do not track searge names take their deobfuscated name as the searge name.
+	 */
+	public FrozenOBFTableSRG(OBFTable source) {
+		super(source, true);
+	}
+
+	public void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+		throw new UnsupportedOperationException("Frozen tables cannot be modified");
+	}
+
+	public String getObfFromSRG(String searge, TargetType type) {
+		Section section = getSection(type);
+		int row = section.srgIndex.find(section.srg, searge);
+		return row < 0 ? null : section.obf[row];
+	}
+
+	public String getDeObfFromSRG(String searge, TargetType type) {
+		Section section = getSection(type);
+		int row = section.srgIndex.find(section.srg, searge);
+		return row < 0 ? null : section.deobf[row];
+	}
+
+	public String getSRGFromObf(String obf, TargetType type) {
+		Section section = getSection(type);
+		int row = section.obfIndex.find(section.obf, obf);
+		return row < 0 ? null : section.srg[row];
+	}
+
+	public String getSRGFromDeObf(String deobf, TargetType type) {
+		Section section = getSection(type);
+		int row = section.deobfIndex.find(section.deobf, deobf);
+		return row < 0 ? null : section.srg[row];
+	}
+
+	public boolean hasSRG(String srgName, TargetType type) {
+		Section section = sections[type.ordinal()];
+		return section != null && section.srgIndex.find(section.srg, srgName) >= 0;
+	}
+
+	public String[] getAllSRG(TargetType type) {
+		Section section = getSection(type);
+		return section.srgIndex.keys(section.srg);
+	}
+}
@@ -0,0 +1,108 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+
+/**
+ * A view of an OBFTable with the obfuscated and deobfuscated names swapped.
+ * <p>
+ * Lookups are answered by the opposite index of the underlying table, nothing is copied.
+ * Writes go through to the underlying table with their names swapped back.
+ * Entries that share a deobfuscated name in the underlying table become entries that share an obfuscated name in the view,
+ * lookups by that name see whichever entry the underlying table returns for it.
+ */
+public class InverseOBFTable implements OBFTable {
+	protected final OBFTable table;
+
+	public InverseOBFTable(OBFTable table) {
+		this.table = table;
+	}
+
+	public String deobf(String obfName, TargetType type) {
+		return table.obf(obfName, type);
+	}
+
+	public String obf(String deobfName, TargetType type) {
+		return table.deobf(deobfName, type);
+	}
+
+	@Override
+	public String deobf(MemberKey obfKey, TargetType type) {
+		return table.obf(obfKey, type);
+	}
+
+	@Override
+	public String obf(MemberKey deobfKey, TargetType type) {
+		return table.deobf(deobfKey, type);
+	}
+
+	public void addType(String obfName, String deObfName, TargetType type) {
+		table.addType(deObfName, obfName, type);
+	}
+
+	public boolean removeObf(String obfName, TargetType type) {
+		String obf = table.supportsType(type) ? table.obf(obfName, type) : null;
+		return obf != null && table.removeObf(obf, type);
+	}
+
+	public boolean hasObf(String obfName, TargetType type) {
+		return table.hasDeobf(obfName, type);
+	}
+
+	public boolean hasDeobf(String deobfName, TargetType type) {
+		return table.hasObf(deobfName, type);
+	}
+
+	public boolean supportsType(TargetType type) {
+		return table.supportsType(type);
+	}
+
+	public String[] getAllObf(TargetType type) {
+		return table.getAllDeobf(type);
+	}
+
+	public String[] getAllDeobf(TargetType type) {
+		return table.getAllObf(type);
+	}
+
+	public String[] getObfMembers(String obfOwner, TargetType type) {
+		return table.getDeobfMembers(obfOwner, type);
+	}
+
+	public String[] getDeobfMembers(String deobfOwner, TargetType type) {
+		return table.getObfMembers(deobfOwner, type);
+	}
+
+	public <E extends Exception> void forEach(TargetType type, final EntryVisitor<E> visitor) throws E {
+		table.forEach(type, new EntryVisitor<E>() {
+			public void visit(String obf, String srg, String deobf) throws E {
+				visitor.visit(deobf, obf, obf);
+			}
+		});
+	}
+
+	public void writeToTable(final OBFTable table, final boolean overwrite) {
+		for (final TargetType type : TargetType.values()) {
+			if (!supportsType(type)) continue;
+			forEach(type, new EntryVisitor<RuntimeException>() {
+				public void visit(String obf, String srg, String deobf) {
+					if (overwrite || !table.hasObf(obf, type)) table.addType(obf, deobf, type);
+				}
+			});
+		}
+	}
+
+	public int size() {
+		return table.size();
+	}
+
+	public int getModCount() {
+		return table.getModCount();
+	}
+
+	/**
+	 * Gets the underlying table, which is the inverse of this view.
+	 */
+	public OBFTable inverse() {
+		return table;
+	}
+}
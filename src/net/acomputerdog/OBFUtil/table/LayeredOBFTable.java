@@ -0,0 +1,329 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+import net.acomputerdog.OBFUtil.map.TargetTypeMap;
+
+/**
+ * An OBFTable that stacks other tables without copying them.
+ * <p>
+ * Lookups go through the layers from the highest precedence to the lowest and the first layer holding an obfuscated name decides its mapping,
+ * so a layer hides every entry with the same obfuscated name in the layers below it.
+ * Reverse lookups skip entries that are hidden this way.
+ * <p>
+ * The underlying layers are never modified.  Writes go to a private top layer that sits above all of them and starts out empty,
+ * so putting a patch over a large base table costs only the entries of the patch.
+ * Removing a name takes it out of the top layer and hides it in the layers below, the same way an entry of the top layer would.
+ * Changes made to the underlying layers after the stack is built are visible through it.
+ */
+public class LayeredOBFTable implements OBFTable {
+	/**
+	 * The top layer followed by the underlying layers, in order of precedence.
+	 */
+	protected final OBFTable[] layers;
+	protected final OBFTable top;
+	/**
+	 * Obfuscated names removed from this table, which hide the entries of the underlying layers.
+	 */
+	protected final TargetTypeMap<Set<String>> removed = new TargetTypeMap<Set<String>>();
+	private int removedCount = 0;
+	private int cachedSize = -1;
+	private int cachedSizeModCount = -1;
+
+	/**
+	 * Creates a stack of tables.
+	 *
+	 * @param layers	The underlying tables, highest precedence first
+	 */
+	public LayeredOBFTable(OBFTable... layers) {
+		this(new ColumnarOBFTable(), layers);
+	}
+
+	public LayeredOBFTable(List<? extends OBFTable> layers) {
+		this(layers.toArray(new OBFTable[layers.size()]));
+	}
+
+	protected LayeredOBFTable(OBFTable top, OBFTable[] layers) {
+		this.top = top;
+		this.layers = new OBFTable[layers.length + 1];
+		this.layers[0] = top;
+		for (int i = 0; i < layers.length; i++) {
+			if (layers[i] == null) throw new IllegalArgumentException("Layer " + i + " is null");
+			this.layers[i + 1] = layers[i];
+		}
+	}
+
+	/**
+	 * Gets the table that receives all writes made to this one.
+	 */
+	public OBFTable getTop() {
+		return top;
+	}
+
+	/**
+	 * Gets the underlying tables, highest precedence first.  The top layer is not included.
+	 */
+	public List<OBFTable> getLayers() {
+		return Collections.unmodifiableList(Arrays.asList(layers).subList(1, layers.length));
+	}
+
+	public String deobf(String obfName, TargetType type) {
+		checkType(type);
+		for (int i = 0; i < layers.length; i++) {
+			if (i == 1 && isRemoved(obfName, type)) return null;
+			if (!layers[i].supportsType(type)) continue;
+			String deobf = layers[i].deobf(obfName, type);
+			if (deobf != null) return deobf;
+		}
+		return null;
+	}
+
+	public String obf(String deobfName, TargetType type) {
+		checkType(type);
+		for (int i = 0; i < layers.length; i++) {
+			if (!layers[i].supportsType(type)) continue;
+			String obf = layers[i].obf(deobfName, type);
+			if (obf != null && !isHidden(obf, type, i)) return obf;
+		}
+		return null;
+	}
+
+	@Override
+	public String deobf(MemberKey obfKey, TargetType type) {
+		checkType(type);
+		for (int i = 0; i < layers.length; i++) {
+			if (i == 1 && removed.containsKey(type) && isRemoved(obfKey.toString(), type)) return null;
+			if (!layers[i].supportsType(type)) continue;
+			String deobf = layers[i].deobf(obfKey, type);
+			if (deobf != null) return deobf;
+		}
+		return null;
+	}
+
+	@Override
+	public String obf(MemberKey deobfKey, TargetType type) {
+		checkType(type);
+		for (int i = 0; i < layers.length; i++) {
+			if (!layers[i].supportsType(type)) continue;
+			String obf = layers[i].obf(deobfKey, type);
+			if (obf != null && !isHidden(obf, type, i)) return obf;
+		}
+		return null;
+	}
+
+	public void addType(String obfName, String deObfName, TargetType type) {
+		top.addType(obfName, deObfName, type);
+	}
+
+	public boolean hasObf(String obfName, TargetType type) {
+		for (int i = 0; i < layers.length; i++) {
+			if (i == 1 && isRemoved(obfName, type)) return false;
+			if (layers[i].hasObf(obfName, type)) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Removes a name from the top layer and hides it in the underlying layers.
+	 */
+	public boolean removeObf(String obfName, TargetType type) {
+		if (!supportsType(type)) return false;
+		boolean found = top.supportsType(type) && top.hasObf(obfName, type) && top.removeObf(obfName, type);
+		if (isRemoved(obfName, type)) return found;
+		for (int i = 1; i < layers.length; i++) {
+			if (layers[i].supportsType(type) && layers[i].hasObf(obfName, type)) {
+				Set<String> names = removed.get(type);
+				if (names == null) removed.put(type, names = new HashSet<String>());
+				names.add(obfName);
+				removedCount++;
+				return true;
+			}
+		}
+		return found;
+	}
+
+	public boolean hasDeobf(String deobfName, TargetType type) {
+		return supportsType(type) && obf(deobfName, type) != null;
+	}
+
+	public boolean supportsType(TargetType type) {
+		for (OBFTable layer : layers) {
+			if (layer.supportsType(type)) return true;
+		}
+		return false;
+	}
+
+	public String[] getAllObf(TargetType type) {
+		final List<String> result = new ArrayList<String>();
+		forEach(type, new EntryVisitor<RuntimeException>() {
+			public void visit(String obf, String srg, String deobf) {
+				result.add(obf);
+			}
+		});
+		return result.toArray(new String[result.size()]);
+	}
+
+	public String[] getAllDeobf(TargetType type) {
+		final Set<String> result = new LinkedHashSet<String>();
+		forEach(type, new EntryVisitor<RuntimeException>() {
+			public void visit(String obf, String srg, String deobf) {
+				result.add(deobf);
+			}
+		});
+		return result.toArray(new String[result.size()]);
+	}
+
+	public String[] getObfMembers(String obfOwner, TargetType type) {
+		checkType(type);
+		List<String> result = new ArrayList<String>();
+		for (int i = 0; i < layers.length; i++) {
+			if (!layers[i].supportsType(type)) continue;
+			for (String obf : layers[i].getObfMembers(obfOwner, type)) {
+				if (!isHidden(obf, type, i)) result.add(obf);
+			}
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	public String[] getDeobfMembers(String deobfOwner, TargetType type) {
+		checkType(type);
+		Set<String> result = new LinkedHashSet<String>();
+		for (int i = 0; i < layers.length; i++) {
+			if (!layers[i].supportsType(type)) continue;
+			for (String deobf : layers[i].getDeobfMembers(deobfOwner, type)) {
+				if (result.contains(deobf)) continue;
+				// Only the layers above this one can hide the entry, a visible entry with the same name further down is found when its layer comes up
+				String obf = layers[i].obf(deobf, type);
+				if (obf != null && !isHidden(obf, type, i)) result.add(deobf);
+			}
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	/**
+	 * Visits the visible entries of every layer, starting with the top layer.
+	 */
+	public <E extends Exception> void forEach(final TargetType type, final EntryVisitor<E> visitor) throws E {
+		checkType(type);
+		for (int i = 0; i < layers.length; i++) {
+			if (!layers[i].supportsType(type)) continue;
+			final int layer = i;
+			layers[i].forEach(type, new EntryVisitor<E>() {
+				public void visit(String obf, String srg, String deobf) throws E {
+					if (!isHidden(obf, type, layer)) visitor.visit(obf, srg, deobf);
+				}
+			});
+		}
+	}
+
+	public void ensureCapacity(TargetType type, int additional) {
+		top.ensureCapacity(type, additional);
+	}
+
+	/**
+	 * Adds a batch to the top layer.  Without overwrite, entries whose obfuscated name is already visible,
+	 * or taken by an earlier entry of the batch, are filtered out first so the rest still go in as one bulk insert.
+	 */
+	public void addAll(MappingBatch batch, boolean overwrite) {
+		if (overwrite) {
+			top.addAll(batch, true);
+			return;
+		}
+		MappingBatch filtered = new MappingBatch();
+		for (TargetType type : TargetType.values()) {
+			int count = batch.size(type);
+			if (count == 0) continue;
+			boolean known = supportsType(type);
+			Set<String> taken = new HashSet<String>();
+			filtered.ensureCapacity(type, count);
+			for (int i = 0; i < count; i++) {
+				String obf = batch.getObf(type, i);
+				if ((known && hasObf(obf, type)) || !taken.add(obf)) continue;
+				filtered.addTypeSRG(obf, batch.getSRG(type, i), batch.getDeobf(type, i), type);
+			}
+		}
+		top.addAll(filtered, true);
+	}
+
+	public void writeToTable(final OBFTable table, final boolean overwrite) {
+		final OBFTableSRG srgTable = table instanceof OBFTableSRG && this instanceof OBFTableSRG ? (OBFTableSRG)table : null;
+		for (final TargetType type : TargetType.values()) {
+			if (!supportsType(type)) continue;
+			forEach(type, new EntryVisitor<RuntimeException>() {
+				public void visit(String obf, String srg, String deobf) {
+					if (overwrite || !table.hasObf(obf, type)) {
+						if (srgTable != null) {
+							srgTable.addTypeSRG(obf, srg, deobf, type);
+						} else {
+							table.addType(obf, deobf, type);
+						}
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Counts the visible entries.  Every entry of every layer is checked against the layers above it,
+	 * the count is kept until one of the layers changes if all of them track modifications.
+	 */
+	public int size() {
+		int modCount = getModCount();
+		if (modCount >= 0 && cachedSize >= 0 && modCount == cachedSizeModCount) return cachedSize;
+		final int[] size = new int[1];
+		for (TargetType type : TargetType.values()) {
+			if (!supportsType(type)) continue;
+			forEach(type, new EntryVisitor<RuntimeException>() {
+				public void visit(String obf, String srg, String deobf) {
+					size[0]++;
+				}
+			});
+		}
+		cachedSize = size[0];
+		cachedSizeModCount = modCount;
+		return size[0];
+	}
+
+	/**
+	 * Gets the sum of the modification counts of all layers, or -1 if any layer does not track modifications.
+	 */
+	public int getModCount() {
+		int modCount = removedCount;
+		for (OBFTable layer : layers) {
+			int layerCount = layer.getModCount();
+			if (layerCount < 0) return -1;
+			modCount += layerCount;
+		}
+		return modCount;
+	}
+
+	/**
+	 * Checks if an obfuscated name is held by a layer with higher precedence than the given one.
+	 */
+	protected boolean isHidden(String obfName, TargetType type, int layer) {
+		if (layer > 0 && isRemoved(obfName, type)) return true;
+		for (int i = 0; i < layer; i++) {
+			if (layers[i].hasObf(obfName, type)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if an obfuscated name has been removed from the underlying layers.
+	 */
+	protected boolean isRemoved(String obfName, TargetType type) {
+		Set<String> names = removed.get(type);
+		return names != null && names.contains(obfName);
+	}
+
+	protected void checkType(TargetType type) {
+		if (!supportsType(type)) throw new IllegalArgumentException("Unknown target type: " + type.name());
+	}
+}
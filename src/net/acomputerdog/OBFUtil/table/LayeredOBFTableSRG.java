@@ -0,0 +1,97 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+
+/**
+ * OBFTable that adds support for a third "searge" obfuscation name.  Based on LayeredOBFTable.
+ * <p>
+ * Layers that are not searge tables are treated as if the searge name of each entry were its deobfuscated name.
+ */
+public class LayeredOBFTableSRG extends LayeredOBFTable implements OBFTableSRG {
+
+	public LayeredOBFTableSRG(OBFTable... layers) {
+		super(new ColumnarOBFTableSRG(), layers);
+	}
+
+	public LayeredOBFTableSRG(List<? extends OBFTable> layers) {
+		this(layers.toArray(new OBFTable[layers.size()]));
+	}
+
+	@Override
+	public OBFTableSRG getTop() {
+		return (OBFTableSRG)top;
+	}
+
+	public String getObfFromSRG(String searge, TargetType type) {
+		checkType(type);
+		for (int i = 0; i < layers.length; i++) {
+			if (!layers[i].supportsType(type)) continue;
+			String obf = obfFromSRG(layers[i], searge, type);
+			if (obf != null && !isHidden(obf, type, i)) return obf;
+		}
+		return null;
+	}
+
+	public String getDeObfFromSRG(String searge, TargetType type) {
+		String obf = getObfFromSRG(searge, type);
+		return obf == null ? null : deobf(obf, type);
+	}
+
+	public String getSRGFromObf(String obf, TargetType type) {
+		checkType(type);
+		for (int i = 0; i < layers.length; i++) {
+			if (i == 1 && isRemoved(obf, type)) return null;
+			OBFTable layer = layers[i];
+			if (!layer.supportsType(type) || !layer.hasObf(obf, type)) continue;
+			return layer instanceof OBFTableSRG ? ((OBFTableSRG)layer).getSRGFromObf(obf, type) : layer.deobf(obf, type);
+		}
+		return null;
+	}
+
+	public String getSRGFromDeObf(String deobf, TargetType type) {
+		String obf = obf(deobf, type);
+		return obf == null ? null : getSRGFromObf(obf, type);
+	}
+
+	public boolean hasSRG(String srgName, TargetType type) {
+		return supportsType(type) && getObfFromSRG(srgName, type) != null;
+	}
+
+	public String[] getAllSRG(TargetType type) {
+		final Set<String> result = new LinkedHashSet<String>();
+		forEach(type, new EntryVisitor<RuntimeException>() {
+			public void visit(String obf, String srg, String deobf) {
+				result.add(srg);
+			}
+		});
+		return result.toArray(new String[result.size()]);
+	}
+
+	public String[] getSRGMembers(String srgOwner, TargetType type) {
+		checkType(type);
+		Set<String> result = new LinkedHashSet<String>();
+		for (int i = 0; i < layers.length; i++) {
+			OBFTable layer = layers[i];
+			if (!layer.supportsType(type)) continue;
+			String[] members = layer instanceof OBFTableSRG ? ((OBFTableSRG)layer).getSRGMembers(srgOwner, type) : layer.getDeobfMembers(srgOwner, type);
+			for (String srg : members) {
+				if (result.contains(srg)) continue;
+				String obf = obfFromSRG(layer, srg, type);
+				if (obf != null && !isHidden(obf, type, i)) result.add(srg);
+			}
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	public void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+		getTop().addTypeSRG(obfName, seargeName, deObfName, type);
+	}
+
+	private static String obfFromSRG(OBFTable layer, String searge, TargetType type) {
+		return layer instanceof OBFTableSRG ? ((OBFTableSRG)layer).getObfFromSRG(searge, type) : layer.obf(searge, type);
+	}
+}
@@ -0,0 +1,449 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
+import net.acomputerdog.OBFUtil.map.TargetType;
+import net.acomputerdog.OBFUtil.parse.FormatException;
+
+/**
+ * A read-only OBFTable that serves lookups directly out of a buffer holding the binary mapping format.
+ * <p>
+ * When opened from a file the buffer is memory mapped, so loading costs a mapping plus a header read
+ * and the pages can be shared by every process using the same file.
+ * Keys are hashed and compared against the UTF-8 bytes in the buffer, strings are only created for returned names.
+ * <p>
+ * <b>Format</b> (all integers are big-endian):
+ * <pre>
+ * header:   int magic, int version, int flags, int sectionCount
+ *           sectionCount * { int typeOrdinal, int rowCount, int sectionOffset }
+ * section:  rowCount * { int obf, int srg, int deobf }      (string offsets)
+ *           int capacity, capacity * int                    (obf index)
+ *           int capacity, capacity * int                    (deobf index)
+ *           int capacity, capacity * int                    (srg index, only if FLAG_SEARGE is set)
+ * string:   int hash, int byteLength, byteLength * byte      (UTF-8)
+ * </pre>
+ * Index slots hold a row number plus one, zero marks an empty slot. Indices use linear probing starting at
+ * {@code mix(hash) & (capacity - 1)}, where hash is the {@link String#hashCode()} of the key.
+ */
+public class MappedOBFTable implements OBFTable {
+	public static final int MAGIC = 0x4F424642;
+	public static final int VERSION = 1;
+	public static final int FLAG_SEARGE = 1;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int ROW_SIZE = 12;
+	/**
+	 * Offsets of the name columns within a row.
+	 */
+	protected static final int OBF = 0;
+	protected static final int SRG = 4;
+	protected static final int DEOBF = 8;
+
+	protected final ByteBuffer buffer;
+	protected final Section[] sections = new Section[TargetType.values().length];
+	private final int size;
+
+	/**
+	 * Opens a binary mapping file.
+	 *
+	 * @param file	The file to map
+	 * @return A MappedOBFTableSRG if the file contains searge names, otherwise a MappedOBFTable.
+	 */
+	public static MappedOBFTable open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			return wrap(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Creates a table over a buffer holding the binary mapping format.
+	 *
+	 * @return A MappedOBFTableSRG if the buffer contains searge names, otherwise a MappedOBFTable.
+	 */
+	public static MappedOBFTable wrap(ByteBuffer buffer) throws FormatException {
+		if (buffer.capacity() < 16 || buffer.getInt(0) != MAGIC) throw new FormatException("Not a binary mapping file");
+		if (buffer.getInt(4) != VERSION) throw new FormatException("Unsupported binary mapping version: " + buffer.getInt(4));
+		if ((buffer.getInt(8) & FLAG_SEARGE) != 0) return new MappedOBFTableSRG(buffer);
+		return new MappedOBFTable(buffer);
+	}
+
+	protected MappedOBFTable(ByteBuffer buffer) throws FormatException {
+		this.buffer = buffer;
+		boolean searge = (buffer.getInt(8) & FLAG_SEARGE) != 0;
+		int count = buffer.getInt(12);
+		int size = 0;
+		try {
+			for (int i = 0; i < count; i++) {
+				int entry = 16 + i * 12;
+				Section section = new Section(buffer.getInt(entry + 4), buffer.getInt(entry + 8), searge);
+				sections[buffer.getInt(entry)] = section;
+				size += section.rows;
+			}
+		} catch (IndexOutOfBoundsException e) {
+			throw new FormatException("Corrupt binary mapping file", e);
+		}
+		this.size = size;
+	}
+
+	public String deobf(String obfName, TargetType type) {
+		Section section = getSection(type);
+		int row = section.find(section.obfIndex, OBF, obfName);
+		return row < 0 ? null : section.name(row, DEOBF);
+	}
+
+	public String obf(String deobfName, TargetType type) {
+		Section section = getSection(type);
+		int row = section.find(section.deobfIndex, DEOBF, deobfName);
+		return row < 0 ? null : section.name(row, OBF);
+	}
+
+	@Override
+	public String deobf(MemberKey obfKey, TargetType type) {
+		Section section = getSection(type);
+		int row = section.find(section.obfIndex, OBF, obfKey);
+		return row < 0 ? null : section.name(row, DEOBF);
+	}
+
+	@Override
+	public String obf(MemberKey deobfKey, TargetType type) {
+		Section section = getSection(type);
+		int row = section.find(section.deobfIndex, DEOBF, deobfKey);
+		return row < 0 ? null : section.name(row, OBF);
+	}
+
+	public void addType(String obfName, String deObfName, TargetType type) {
+		throw new UnsupportedOperationException("Mapped tables cannot be modified");
+	}
+
+	public boolean hasObf(String obfName, TargetType type) {
+		Section section = sections[type.ordinal()];
+		return section != null && section.find(section.obfIndex, OBF, obfName) >= 0;
+	}
+
+	public boolean hasDeobf(String deobfName, TargetType type) {
+		Section section = sections[type.ordinal()];
+		return section != null && section.find(section.deobfIndex, DEOBF, deobfName) >= 0;
+	}
+
+	public boolean supportsType(TargetType type) {
+		return sections[type.ordinal()] != null;
+	}
+
+	public String[] getAllObf(TargetType type) {
+		Section section = getSection(type);
+		String[] result = new String[section.rows];
+		for (int row = 0; row < result.length; row++) result[row] = section.name(row, OBF);
+		return result;
+	}
+
+	public String[] getAllDeobf(TargetType type) {
+		Section section = getSection(type);
+		return section.keys(section.deobfIndex, DEOBF);
+	}
+
+	public <E extends Exception> void forEach(TargetType type, EntryVisitor<E> visitor) throws E {
+		Section section = getSection(type);
+		for (int row = 0; row < section.rows; row++) {
+			visitor.visit(section.name(row, OBF), section.name(row, SRG), section.name(row, DEOBF));
+		}
+	}
+
+	public Spliterator<ObfMapSrg.Entry> spliterator(TargetType type) {
+		Section section = getSection(type);
+		return new SectionSpliterator(section, 0, section.rows);
+	}
+
+	public void writeToTable(OBFTable table, boolean overwrite) {
+		OBFTableSRG srgTable = table instanceof OBFTableSRG && this instanceof OBFTableSRG ? (OBFTableSRG)table : null;
+		for (TargetType type : TargetType.values()) {
+			Section section = sections[type.ordinal()];
+			if (section == null) continue;
+			table.ensureCapacity(type, section.rows);
+			for (int row = 0; row < section.rows; row++) {
+				String obf = section.name(row, OBF);
+				if (overwrite || !table.hasObf(obf, type)) {
+					if (srgTable != null) {
+						srgTable.addTypeSRG(obf, section.name(row, SRG), section.name(row, DEOBF), type);
+					} else {
+						table.addType(obf, section.name(row, DEOBF), type);
+					}
+				}
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Always 0, this table can not be modified.
+	 */
+	public int getModCount() {
+		return 0;
+	}
+
+	/**
+	 * Gets the section holding entries for the given type.
+	 *
+	 * @throws IllegalArgumentException if this table has no entries of that type.
+	 */
+	protected Section getSection(TargetType type) {
+		Section section = sections[type.ordinal()];
+		if (section == null) throw new IllegalArgumentException("Unknown target type: " + type.name());
+		return section;
+	}
+
+	/**
+	 * Writes the contents of a table in the binary mapping format.
+	 *
+	 * @param table	The table to write
+	 * @param out	The stream to write to.  Not closed by this method.
+	 */
+	public static void write(OBFTable table, OutputStream out) throws IOException {
+		boolean searge = table instanceof OBFTableSRG;
+		int count = 0;
+		for (TargetType type : TargetType.values()) {
+			if (table.supportsType(type)) count++;
+		}
+		int[][] rows = new int[count][];
+		int[][][] indices = new int[count][][];
+		TargetType[] types = new TargetType[count];
+		Map<String, Integer> strings = new HashMap<String, Integer>();
+		ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+		DataOutputStream stringData = new DataOutputStream(stringBytes);
+		int headerSize = 16 + count * 12;
+		int sectionsSize = 0;
+
+		int section = 0;
+		for (TargetType type : TargetType.values()) {
+			if (!table.supportsType(type)) continue;
+			types[section] = type;
+			final List<String[]> entries = new ArrayList<String[]>();
+			table.forEach(type, new EntryVisitor<RuntimeException>() {
+				public void visit(String obf, String srg, String deobf) {
+					entries.add(new String[] {obf, srg, deobf});
+				}
+			});
+			String[] obf = new String[entries.size()];
+			Map<String, Integer> rowOf = new HashMap<String, Integer>();
+			String[][] names = new String[3][obf.length];
+			int[] data = new int[obf.length * 3];
+			for (int row = 0; row < obf.length; row++) {
+				String[] entry = entries.get(row);
+				obf[row] = entry[0];
+				rowOf.put(obf[row], row);
+				for (int column = 0; column < 3; column++) {
+					names[column][row] = entry[column];
+					data[row * 3 + column] = intern(names[column][row], strings, stringData);
+				}
+			}
+			int[][] index = new int[searge ? 3 : 2][];
+			index[0] = buildIndex(obf, rowOf, obf, names[0]);
+			String[] deobf = table.getAllDeobf(type);
+			String[] deobfOwners = new String[deobf.length];
+			for (int i = 0; i < deobf.length; i++) deobfOwners[i] = table.obf(deobf[i], type);
+			index[1] = buildIndex(deobf, rowOf, deobfOwners, names[2]);
+			if (searge) {
+				String[] srg = ((OBFTableSRG)table).getAllSRG(type);
+				String[] srgOwners = new String[srg.length];
+				for (int i = 0; i < srg.length; i++) srgOwners[i] = ((OBFTableSRG)table).getObfFromSRG(srg[i], type);
+				index[2] = buildIndex(srg, rowOf, srgOwners, names[1]);
+			}
+			rows[section] = data;
+			indices[section] = index;
+			sectionsSize += data.length * 4;
+			for (int[] i : index) sectionsSize += 4 + i.length * 4;
+			section++;
+		}
+		stringData.flush();
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(searge ? FLAG_SEARGE : 0);
+		data.writeInt(count);
+		int offset = headerSize;
+		for (int i = 0; i < count; i++) {
+			data.writeInt(types[i].ordinal());
+			data.writeInt(rows[i].length / 3);
+			data.writeInt(offset);
+			offset += rows[i].length * 4;
+			for (int[] index : indices[i]) offset += 4 + index.length * 4;
+		}
+		int stringBase = headerSize + sectionsSize;
+		for (int i = 0; i < count; i++) {
+			for (int ref : rows[i]) data.writeInt(stringBase + ref);
+			for (int[] index : indices[i]) {
+				data.writeInt(index.length);
+				for (int slot : index) data.writeInt(slot);
+			}
+		}
+		stringBytes.writeTo(data);
+		data.flush();
+	}
+
+	private static int intern(String name, Map<String, Integer> strings, DataOutputStream out) throws IOException {
+		Integer existing = strings.get(name);
+		if (existing != null) return existing;
+		int offset = out.size();
+		byte[] bytes = name.getBytes(UTF8);
+		out.writeInt(name.hashCode());
+		out.writeInt(bytes.length);
+		out.write(bytes);
+		strings.put(name, offset);
+		return offset;
+	}
+
+	/**
+	 * Builds the slots of an index over a column.
+	 *
+	 * @param keys		The distinct keys to index
+	 * @param rowOf		Row of each obfuscated name
+	 * @param owners	The obfuscated name each key resolves to
+	 * @param column	The column holding the keys
+	 */
+	private static int[] buildIndex(String[] keys, Map<String, Integer> rowOf, String[] owners, String[] column) {
+		int capacity = 2;
+		while (capacity >>> 1 < keys.length) capacity <<= 1;
+		int[] slots = new int[capacity];
+		for (int i = 0; i < keys.length; i++) {
+			Integer row = owners[i] == null ? null : rowOf.get(owners[i]);
+			if (row == null || !keys[i].equals(column[row])) continue;
+			int slot = RowIndex.mix(keys[i].hashCode()) & (capacity - 1);
+			while (slots[slot] != 0) slot = (slot + 1) & (capacity - 1);
+			slots[slot] = row + 1;
+		}
+		return slots;
+	}
+
+	private static final class SectionSpliterator extends RowSpliterator {
+		private final Section section;
+
+		SectionSpliterator(Section section, int origin, int fence) {
+			super(origin, fence);
+			this.section = section;
+		}
+
+		protected ObfMapSrg.Entry entry(int row) {
+			return new MappingEntry(section.name(row, OBF), section.name(row, SRG), section.name(row, DEOBF));
+		}
+
+		protected RowSpliterator range(int origin, int fence) {
+			return new SectionSpliterator(section, origin, fence);
+		}
+
+		public int characteristics() {
+			return super.characteristics() | IMMUTABLE;
+		}
+	}
+
+	/**
+	 * Entries of a single TargetType.
+	 */
+	protected final class Section {
+		protected final int rows;
+		protected final int base;
+		protected final int obfIndex;
+		protected final int deobfIndex;
+		protected final int srgIndex;
+
+		Section(int rows, int base, boolean searge) {
+			this.rows = rows;
+			this.base = base;
+			obfIndex = base + rows * ROW_SIZE;
+			deobfIndex = obfIndex + 4 + buffer.getInt(obfIndex) * 4;
+			srgIndex = searge ? deobfIndex + 4 + buffer.getInt(deobfIndex) * 4 : deobfIndex;
+		}
+
+		/**
+		 * Gets the row whose given column holds a key, or -1 if there is none.
+		 */
+		protected int find(int index, int column, CharSequence key) {
+			int hash = MemberKey.hashOf(key);
+			int mask = buffer.getInt(index) - 1;
+			for (int slot = RowIndex.mix(hash) & mask; ; slot = (slot + 1) & mask) {
+				int row = buffer.getInt(index + 4 + slot * 4) - 1;
+				if (row < 0 || matches(string(row, column), hash, key)) return row;
+			}
+		}
+
+		protected String name(int row, int column) {
+			int string = string(row, column);
+			int length = buffer.getInt(string + 4);
+			byte[] bytes = new byte[length];
+			if (buffer.hasArray()) {
+				System.arraycopy(buffer.array(), buffer.arrayOffset() + string + 8, bytes, 0, length);
+			} else {
+				ByteBuffer slice = buffer.duplicate();
+				slice.position(string + 8);
+				slice.get(bytes);
+			}
+			return new String(bytes, UTF8);
+		}
+
+		protected String[] keys(int index, int column) {
+			int capacity = buffer.getInt(index);
+			int count = 0;
+			for (int slot = 0; slot < capacity; slot++) {
+				if (buffer.getInt(index + 4 + slot * 4) != 0) count++;
+			}
+			String[] result = new String[count];
+			count = 0;
+			for (int slot = 0; slot < capacity; slot++) {
+				int row = buffer.getInt(index + 4 + slot * 4) - 1;
+				if (row >= 0) result[count++] = name(row, column);
+			}
+			return result;
+		}
+
+		private int string(int row, int column) {
+			return buffer.getInt(base + row * ROW_SIZE + column);
+		}
+
+		/**
+		 * Compares a key against a stored UTF-8 string without decoding it into a String.
+		 */
+		private boolean matches(int string, int hash, CharSequence key) {
+			if (buffer.getInt(string) != hash) return false;
+			int position = string + 8;
+			int end = position + buffer.getInt(string + 4);
+			int length = key.length();
+			int i = 0;
+			while (position < end) {
+				int b = buffer.get(position++);
+				int c;
+				if (b >= 0) {
+					c = b;
+				} else if ((b & 0xE0) == 0xC0) {
+					c = (b & 0x1F) << 6 | (buffer.get(position++) & 0x3F);
+				} else if ((b & 0xF0) == 0xE0) {
+					c = (b & 0x0F) << 12 | (buffer.get(position++) & 0x3F) << 6 | (buffer.get(position++) & 0x3F);
+				} else {
+					int codePoint = (b & 0x07) << 18 | (buffer.get(position++) & 0x3F) << 12 | (buffer.get(position++) & 0x3F) << 6 | (buffer.get(position++) & 0x3F);
+					if (i + 1 >= length || key.charAt(i++) != Character.highSurrogate(codePoint)) return false;
+					c = Character.lowSurrogate(codePoint);
+				}
+				if (i >= length || key.charAt(i++) != c) return false;
+			}
+			return i == length;
+		}
+	}
+}
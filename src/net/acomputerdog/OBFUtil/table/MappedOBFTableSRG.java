@@ -0,0 +1,53 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.nio.ByteBuffer;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+import net.acomputerdog.OBFUtil.parse.FormatException;
+
+/**
+ * MappedOBFTable over a file that carries searge names.  Obtained through {@link MappedOBFTable#open} or {@link MappedOBFTable#wrap}.
+ */
+public class MappedOBFTableSRG extends MappedOBFTable implements OBFTableSRG {
+	protected MappedOBFTableSRG(ByteBuffer buffer) throws FormatException {
+		super(buffer);
+	}
+
+	public void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+		throw new UnsupportedOperationException("Mapped tables cannot be modified");
+	}
+
+	public String getObfFromSRG(String searge, TargetType type) {
+		Section section = getSection(type);
+		int row = section.find(section.srgIndex, SRG, searge);
+		return row < 0 ? null : section.name(row, OBF);
+	}
+
+	public String getDeObfFromSRG(String searge, TargetType type) {
+		Section section = getSection(type);
+		int row = section.find(section.srgIndex, SRG, searge);
+		return row < 0 ? null : section.name(row, DEOBF);
+	}
+
+	public String getSRGFromObf(String obf, TargetType type) {
+		Section section = getSection(type);
+		int row = section.find(section.obfIndex, OBF, obf);
+		return row < 0 ? null : section.name(row, SRG);
+	}
+
+	public String getSRGFromDeObf(String deobf, TargetType type) {
+		Section section = getSection(type);
+		int row = section.find(section.deobfIndex, DEOBF, deobf);
+		return row < 0 ? null : section.name(row, SRG);
+	}
+
+	public boolean hasSRG(String srgName, TargetType type) {
+		Section section = sections[type.ordinal()];
+		return section != null && section.find(section.srgIndex, SRG, srgName) >= 0;
+	}
+
+	public String[] getAllSRG(TargetType type) {
+		Section section = getSection(type);
+		return section.keys(section.srgIndex, SRG);
+	}
+}
@@ -0,0 +1,125 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.util.Arrays;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+
+/**
+ * A block of entries to be added to a table in one go, see {@link OBFTable#addAll(MappingBatch, boolean)}.
+ * <p>
+ * Entries are kept per TargetType in the order they were added.  Handing the whole block to a table at once
+ * lets it size its indices for every entry up front instead of rehashing while it fills.
+ */
+public class MappingBatch {
+	private static final String[] EMPTY = new String[0];
+
+	private final Block[] blocks = new Block[TargetType.values().length];
+
+	/**
+	 * Makes room for the given number of further entries of a type.
+	 * Parsers that know how many entries to expect, e.g. from a header, can use this to avoid growing the batch itself.
+	 */
+	public void ensureCapacity(TargetType type, int additional) {
+		Block block = getOrCreateBlock(type);
+		if (block.size + additional > block.obf.length) block.grow(block.size + additional);
+	}
+
+	/**
+	 * Adds an entry without a separate searge name.  Tables that track searge names will use the deobfuscated name.
+	 */
+	public void addType(String obfName, String deObfName, TargetType type) {
+		addTypeSRG(obfName, deObfName, deObfName, type);
+	}
+
+	public void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+		Block block = getOrCreateBlock(type);
+		if (block.size == block.obf.length) block.grow(Math.max(16, block.size + (block.size >>> 1)));
+		block.obf[block.size] = obfName;
+		block.srg[block.size] = seargeName;
+		block.deobf[block.size] = deObfName;
+		block.size++;
+	}
+
+	/**
+	 * Gets the number of entries of a type in this batch.
+	 */
+	public int size(TargetType type) {
+		Block block = blocks[type.ordinal()];
+		return block == null ? 0 : block.size;
+	}
+
+	/**
+	 * Gets the total number of entries in this batch.
+	 */
+	public int size() {
+		int size = 0;
+		for (Block block : blocks) {
+			if (block != null) size += block.size;
+		}
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public String getObf(TargetType type, int index) {
+		return getBlock(type, index).obf[index];
+	}
+
+	public String getSRG(TargetType type, int index) {
+		return getBlock(type, index).srg[index];
+	}
+
+	public String getDeobf(TargetType type, int index) {
+		return getBlock(type, index).deobf[index];
+	}
+
+	/**
+	 * Passes the entries of a type to a visitor in the order they were added.
+	 */
+	public <E extends Exception> void forEach(TargetType type, EntryVisitor<E> visitor) throws E {
+		Block block = blocks[type.ordinal()];
+		if (block == null) return;
+		for (int i = 0; i < block.size; i++) visitor.visit(block.obf[i], block.srg[i], block.deobf[i]);
+	}
+
+	/**
+	 * Removes all entries from this batch, keeping its storage for reuse.
+	 */
+	public void clear() {
+		for (Block block : blocks) {
+			if (block != null) {
+				Arrays.fill(block.obf, 0, block.size, null);
+				Arrays.fill(block.srg, 0, block.size, null);
+				Arrays.fill(block.deobf, 0, block.size, null);
+				block.size = 0;
+			}
+		}
+	}
+
+	private Block getBlock(TargetType type, int index) {
+		Block block = blocks[type.ordinal()];
+		if (block == null || index < 0 || index >= block.size) throw new IndexOutOfBoundsException("No " + type.name() + " entry at " + index);
+		return block;
+	}
+
+	private Block getOrCreateBlock(TargetType type) {
+		Block block = blocks[type.ordinal()];
+		if (block == null) blocks[type.ordinal()] = block = new Block();
+		return block;
+	}
+
+	private static final class Block {
+		private String[] obf = EMPTY;
+		private String[] srg = EMPTY;
+		private String[] deobf = EMPTY;
+		private int size = 0;
+
+		private void grow(int capacity) {
+			obf = Arrays.copyOf(obf, capacity);
+			srg = Arrays.copyOf(srg, capacity);
+			deobf = Arrays.copyOf(deobf, capacity);
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
+
+/**
+ * An immutable obf, srg, deobf triple taken from a table.
+ */
+public final class MappingEntry implements ObfMapSrg.Entry {
+	private final String obf;
+	private final String srg;
+	private final String deobf;
+
+	public MappingEntry(String obf, String srg, String deobf) {
+		this.obf = obf;
+		this.srg = srg;
+		this.deobf = deobf;
+	}
+
+	public String obf() {
+		return obf;
+	}
+
+	public String srg() {
+		return srg;
+	}
+
+	public String deObf() {
+		return deobf;
+	}
+
+	@Override
+	public String toString() {
+		return obf + " -> " + srg + " -> " + deobf;
+	}
+}
@@ -0,0 +1,178 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
+import net.acomputerdog.OBFUtil.map.TargetType;
+
+/**
+ * Index of the deobfuscated names in a table grouped by owner: packages contain classes, and classes contain fields, methods and constructors.
+ * <p>
+ * The index is built in a single pass over the table and is not updated when the table changes.
+ * Classes are owned by the package named by everything before their last '.', members by the class named by everything before the
+ * last '.' of the part before their descriptor.  Names without a '.' belong to the default package "".
+ */
+public class MappingHierarchy {
+	private static final String[] EMPTY = new String[0];
+	private static final ObfMapSrg.Entry[] EMPTY_ENTRIES = new ObfMapSrg.Entry[0];
+	private static final TargetType[] MEMBER_TYPES = {TargetType.FIELD, TargetType.METHOD, TargetType.CONSTRUCTOR};
+
+	private final Map<String, ObfMapSrg.Entry> packages = new HashMap<String, ObfMapSrg.Entry>();
+	private final Map<String, List<ObfMapSrg.Entry>> classes = new LinkedHashMap<String, List<ObfMapSrg.Entry>>();
+	private final Map<String, List<ObfMapSrg.Entry>[]> members = new HashMap<String, List<ObfMapSrg.Entry>[]>();
+
+	/**
+	 * Builds the hierarchy of a table.
+	 * Should the table hold several entries for the same deobfuscated name only the one added last is kept, the one {@link OBFTable#obf(String, TargetType)} resolves to.
+	 */
+	public MappingHierarchy(OBFTable table) {
+		if (table.supportsType(TargetType.PACKAGE)) {
+			for (ObfMapSrg.Entry entry : lastByDeobf(table, TargetType.PACKAGE)) {
+				packages.put(entry.deObf(), entry);
+				getClassList(entry.deObf());
+			}
+		}
+		if (table.supportsType(TargetType.CLASS)) {
+			for (ObfMapSrg.Entry entry : lastByDeobf(table, TargetType.CLASS)) addClass(entry);
+		}
+		for (TargetType type : MEMBER_TYPES) {
+			if (!table.supportsType(type)) continue;
+			for (ObfMapSrg.Entry entry : lastByDeobf(table, type)) addMember(entry, type);
+		}
+	}
+
+	/**
+	 * Gets the entries of a type, one per deobfuscated name.  Names shared by several entries are resolved through the table.
+	 */
+	private static Collection<ObfMapSrg.Entry> lastByDeobf(final OBFTable table, final TargetType type) {
+		final Map<String, ObfMapSrg.Entry> entries = new LinkedHashMap<String, ObfMapSrg.Entry>();
+		table.forEach(type, new EntryVisitor<RuntimeException>() {
+			public void visit(String obf, String srg, String deobf) {
+				ObfMapSrg.Entry previous = entries.put(deobf, new MappingEntry(obf, srg, deobf));
+				if (previous != null && previous.obf().equals(table.obf(deobf, type))) entries.put(deobf, previous);
+			}
+		});
+		return entries.values();
+	}
+
+	/**
+	 * Gets every package known to this hierarchy, either because the table maps it or because one of its classes is mapped.
+	 */
+	public String[] getPackages() {
+		return classes.keySet().toArray(new String[classes.size()]);
+	}
+
+	/**
+	 * Gets the table entry of a package.
+	 *
+	 * @param deobfPackage	The deobfuscated package name
+	 * @return The entry, or null if the table does not map that package
+	 */
+	public ObfMapSrg.Entry getPackage(String deobfPackage) {
+		return packages.get(deobfPackage);
+	}
+
+	/**
+	 * Gets the classes that are directly inside a package.
+	 *
+	 * @param deobfPackage	The deobfuscated package name
+	 * @return The deobfuscated names of all mapped classes in that package
+	 */
+	public String[] getClasses(String deobfPackage) {
+		return names(classes.get(deobfPackage));
+	}
+
+	/**
+	 * Gets the table entries of the classes that are directly inside a package.
+	 */
+	public ObfMapSrg.Entry[] getClassEntries(String deobfPackage) {
+		return entries(classes.get(deobfPackage));
+	}
+
+	/**
+	 * Gets the members of a class.
+	 *
+	 * @param deobfClass	The deobfuscated class name
+	 * @param type			The type of member to get.  One of FIELD, METHOD or CONSTRUCTOR.
+	 * @return The deobfuscated keys of all mapped members of that type
+	 */
+	public String[] getMembers(String deobfClass, TargetType type) {
+		List<ObfMapSrg.Entry>[] lists = members.get(deobfClass);
+		return lists == null ? EMPTY : names(lists[memberIndex(type)]);
+	}
+
+	/**
+	 * Gets the table entries of the members of a class.
+	 *
+	 * @param deobfClass	The deobfuscated class name
+	 * @param type			The type of member to get.  One of FIELD, METHOD or CONSTRUCTOR.
+	 */
+	public ObfMapSrg.Entry[] getMemberEntries(String deobfClass, TargetType type) {
+		List<ObfMapSrg.Entry>[] lists = members.get(deobfClass);
+		return lists == null ? EMPTY_ENTRIES : entries(lists[memberIndex(type)]);
+	}
+
+	/**
+	 * Gets the owner of a class or member name.
+	 */
+	public static String getOwner(String name) {
+		int space = name.indexOf(' ');
+		int dot = space < 0 ? name.lastIndexOf('.') : name.lastIndexOf('.', space);
+		return dot < 0 ? "" : name.substring(0, dot);
+	}
+
+	/**
+	 * Selects the names from an array that belong to the given owner.  The array is reused.
+	 */
+	public static String[] filterByOwner(String[] names, String owner) {
+		int count = 0;
+		for (int i = 0; i < names.length; i++) {
+			if (getOwner(names[i]).equals(owner)) names[count++] = names[i];
+		}
+		return count == names.length ? names : Arrays.copyOf(names, count);
+	}
+
+	protected void addClass(ObfMapSrg.Entry clazz) {
+		getClassList(getOwner(clazz.deObf())).add(clazz);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	protected void addMember(ObfMapSrg.Entry member, TargetType type) {
+		String owner = getOwner(member.deObf());
+		List<ObfMapSrg.Entry>[] lists = members.get(owner);
+		if (lists == null) members.put(owner, lists = new List[MEMBER_TYPES.length]);
+		int index = memberIndex(type);
+		if (lists[index] == null) lists[index] = new ArrayList<ObfMapSrg.Entry>();
+		lists[index].add(member);
+	}
+
+	private List<ObfMapSrg.Entry> getClassList(String pack) {
+		List<ObfMapSrg.Entry> list = classes.get(pack);
+		if (list == null) classes.put(pack, list = new ArrayList<ObfMapSrg.Entry>());
+		return list;
+	}
+
+	private static String[] names(List<ObfMapSrg.Entry> list) {
+		if (list == null) return EMPTY;
+		String[] result = new String[list.size()];
+		for (int i = 0; i < result.length; i++) result[i] = list.get(i).deObf();
+		return result;
+	}
+
+	private static ObfMapSrg.Entry[] entries(List<ObfMapSrg.Entry> list) {
+		return list == null ? EMPTY_ENTRIES : list.toArray(new ObfMapSrg.Entry[list.size()]);
+	}
+
+	private static int memberIndex(TargetType type) {
+		for (int i = 0; i < MEMBER_TYPES.length; i++) {
+			if (MEMBER_TYPES[i] == type) return i;
+		}
+		throw new IllegalArgumentException("Not a member type: " + type.name());
+	}
+}
@@ -0,0 +1,115 @@
+package net.acomputerdog.OBFUtil.table;
+
+/**
+ * The table key of a member, viewed as "owner.name descriptor" without being concatenated into a new string.
+ * <p>
+ * Owner and name may use either '.' or '/' as the package separator, they are read as if every '/' were a '.'.
+ * The descriptor is read as it is.  An empty or null owner leaves just the name, an empty or null descriptor drops the space.
+ * The hash code of a key is the {@link String#hashCode()} of the string it represents, so tables can probe their indices with it directly.
+ * <p>
+ * Keys are mutable so that a caller, such as a class visitor, can reuse one for every lookup it makes.
+ * They are not thread-safe.
+ */
+public final class MemberKey implements CharSequence {
+	private CharSequence owner;
+	private CharSequence name;
+	private CharSequence descriptor;
+	private int ownerLength;
+	private int nameEnd;
+	private int length;
+	private int hash;
+	private boolean hashed;
+
+	public MemberKey() {
+		set(null, "", null);
+	}
+
+	public MemberKey(CharSequence owner, CharSequence name, CharSequence descriptor) {
+		set(owner, name, descriptor);
+	}
+
+	/**
+	 * Points this key at another member.
+	 *
+	 * @param owner			The owning class, or null
+	 * @param name			The simple name of the member
+	 * @param descriptor	The descriptor of the member, or null
+	 * @return This key
+	 */
+	public MemberKey set(CharSequence owner, CharSequence name, CharSequence descriptor) {
+		this.owner = owner;
+		this.name = name;
+		this.descriptor = descriptor;
+		ownerLength = owner == null || owner.length() == 0 ? 0 : owner.length() + 1;
+		nameEnd = ownerLength + name.length();
+		length = descriptor == null || descriptor.length() == 0 ? nameEnd : nameEnd + 1 + descriptor.length();
+		hashed = false;
+		return this;
+	}
+
+	public int length() {
+		return length;
+	}
+
+	public char charAt(int index) {
+		if (index < 0 || index >= length) throw new IndexOutOfBoundsException("Index " + index + " out of range for length " + length);
+		if (index < ownerLength) return index == ownerLength - 1 ? '.' : dotted(owner.charAt(index));
+		if (index < nameEnd) return dotted(name.charAt(index - ownerLength));
+		if (index == nameEnd) return ' ';
+		return descriptor.charAt(index - nameEnd - 1);
+	}
+
+	public CharSequence subSequence(int start, int end) {
+		return toString().substring(start, end);
+	}
+
+	@Override
+	public int hashCode() {
+		if (!hashed) {
+			int h = 0;
+			for (int i = 0; i < length; i++) h = 31 * h + charAt(i);
+			hash = h;
+			hashed = true;
+		}
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof MemberKey)) return false;
+		MemberKey other = (MemberKey)obj;
+		return other.length == length && other.hashCode() == hashCode() && contentEquals(other);
+	}
+
+	/**
+	 * Checks if this key holds the same characters as another sequence.
+	 */
+	public boolean contentEquals(CharSequence other) {
+		if (other.length() != length) return false;
+		for (int i = 0; i < length; i++) {
+			if (other.charAt(i) != charAt(i)) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder(length);
+		for (int i = 0; i < length; i++) result.append(charAt(i));
+		return result.toString();
+	}
+
+	/**
+	 * Computes the {@link String#hashCode()} of any character sequence.
+	 */
+	static int hashOf(CharSequence key) {
+		if (key instanceof String || key instanceof MemberKey) return key.hashCode();
+		int h = 0;
+		for (int i = 0; i < key.length(); i++) h = 31 * h + key.charAt(i);
+		return h;
+	}
+
+	private static char dotted(char c) {
+		return c == '/' ? '.' : c;
+	}
+}
@@ -0,0 +1,272 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.util.Arrays;
+
+/**
+ * Interning store for the names held by a table.
+ * <p>
+ * Names are broken into a chain of dotted segments plus an optional descriptor following the first space,
+ * so "net.minecraft.entity.Entity.posX" and "net.minecraft.entity.Entity.func_1234_a (La;)V" share every node of their owner
+ * with each other and with the class entry itself.  Each distinct segment and descriptor string is stored once.
+ * <p>
+ * A stored name is referred to by a single {@code long} that packs its node and descriptor ids.
+ * References stay valid for the lifetime of the pool, and can be hashed and compared against
+ * plain strings without being turned back into one.
+ * <p>
+ * The hash of a reference is always equal to the {@link String#hashCode()} of the name it represents.
+ */
+public final class NamePool {
+	private static final int[] EMPTY = new int[0];
+
+	private String[] segments = new String[0];
+	private int segmentCount = 0;
+	private final RowIndex segmentIndex = new RowIndex(new RowIndex.Rows() {
+		public int hashOf(int row) {
+			return segments[row].hashCode();
+		}
+	}, 0);
+
+	private int[] nodeParent = EMPTY;
+	private int[] nodeSegment = EMPTY;
+	private int[] nodeHash = EMPTY;
+	private int[] nodeLength = EMPTY;
+	private int nodeCount = 0;
+	private final RowIndex nodeIndex = new RowIndex(new RowIndex.Rows() {
+		public int hashOf(int row) {
+			return nodeKey(nodeParent[row], nodeSegment[row]);
+		}
+	}, 0);
+
+	/**
+	 * Stores a name in this pool.
+	 *
+	 * @param name	The name to store
+	 * @return A reference to the stored name
+	 */
+	public long intern(String name) {
+		int space = name.indexOf(' ');
+		int end = space < 0 ? name.length() : space;
+		int node = -1;
+		int start = 0;
+		for (int i = 0; i <= end; i++) {
+			if (i == end || name.charAt(i) == '.') {
+				node = internNode(node, internSegment(name, start, i));
+				start = i + 1;
+			}
+		}
+		int descriptor = space < 0 ? -1 : internSegment(name, space + 1, name.length());
+		return ref(node, descriptor);
+	}
+
+	/**
+	 * Gets the id of the prefix node for a dotted name without storing it.
+	 *
+	 * @param name	A name without a descriptor
+	 * @return The node id, or -1 if the name is not held by this pool
+	 */
+	int findNode(String name) {
+		int node = -1;
+		int start = 0;
+		for (int i = 0; i <= name.length(); i++) {
+			if (i == name.length() || name.charAt(i) == '.') {
+				int hash = hashRegion(name, start, i);
+				int segment = findSegment(name, start, i, hash);
+				if (segment < 0) return -1;
+				node = findNode(node, segment, nodeKey(node, segment));
+				if (node < 0) return -1;
+				start = i + 1;
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Gets the id of the node owning a referenced name, that is the name up to its last dot before any descriptor.
+	 * Returns -1 for names without a dot.
+	 */
+	int owner(long ref) {
+		return nodeParent[node(ref)];
+	}
+
+	/**
+	 * Gets the number of distinct segment and descriptor strings held by this pool.
+	 */
+	public int segmentCount() {
+		return segmentCount;
+	}
+
+	/**
+	 * Gets the number of distinct dotted prefixes held by this pool.
+	 */
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Gets the hash of a referenced name.  Equal to the {@link String#hashCode()} of the full name.
+	 */
+	public int hash(long ref) {
+		int node = node(ref);
+		int descriptor = descriptor(ref);
+		if (descriptor < 0) return nodeHash[node];
+		String desc = segments[descriptor];
+		return (nodeHash[node] * 31 + ' ') * pow31(desc.length()) + desc.hashCode();
+	}
+
+	/**
+	 * Gets the length of a referenced name.
+	 */
+	public int length(long ref) {
+		int descriptor = descriptor(ref);
+		return nodeLength[node(ref)] + (descriptor < 0 ? 0 : segments[descriptor].length() + 1);
+	}
+
+	/**
+	 * Checks if a referenced name is equal to the given character sequence.
+	 */
+	public boolean matches(long ref, CharSequence name) {
+		int end = name.length();
+		if (end != length(ref)) return false;
+		int descriptor = descriptor(ref);
+		if (descriptor >= 0) {
+			String desc = segments[descriptor];
+			int start = end - desc.length();
+			if (name.charAt(start - 1) != ' ' || !regionMatches(name, start, desc)) return false;
+			end = start - 1;
+		}
+		for (int node = node(ref); ; ) {
+			String segment = segments[nodeSegment[node]];
+			int start = end - segment.length();
+			if (!regionMatches(name, start, segment)) return false;
+			node = nodeParent[node];
+			if (node < 0) return start == 0;
+			if (start == 0 || name.charAt(start - 1) != '.') return false;
+			end = start - 1;
+		}
+	}
+
+	/**
+	 * Rebuilds the full name represented by a reference.
+	 */
+	public String toString(long ref) {
+		char[] chars = new char[length(ref)];
+		int end = chars.length;
+		int descriptor = descriptor(ref);
+		if (descriptor >= 0) {
+			String desc = segments[descriptor];
+			end -= desc.length();
+			desc.getChars(0, desc.length(), chars, end);
+			chars[--end] = ' ';
+		}
+		for (int node = node(ref); node >= 0; node = nodeParent[node]) {
+			String segment = segments[nodeSegment[node]];
+			end -= segment.length();
+			segment.getChars(0, segment.length(), chars, end);
+			if (end > 0) chars[--end] = '.';
+		}
+		return new String(chars);
+	}
+
+	private int findSegment(String name, int start, int end, int hash) {
+		int length = end - start;
+		for (int slot = segmentIndex.slot(hash); ; slot = segmentIndex.next(slot)) {
+			int row = segmentIndex.row(slot);
+			if (row < 0) return -1;
+			String segment = segments[row];
+			if (segment.length() == length && name.regionMatches(start, segment, 0, length)) return row;
+		}
+	}
+
+	private int findNode(int parent, int segment, int key) {
+		for (int slot = nodeIndex.slot(key); ; slot = nodeIndex.next(slot)) {
+			int row = nodeIndex.row(slot);
+			if (row < 0) return -1;
+			if (nodeParent[row] == parent && nodeSegment[row] == segment) return row;
+		}
+	}
+
+	private int internSegment(String name, int start, int end) {
+		int hash = hashRegion(name, start, end);
+		int existing = findSegment(name, start, end, hash);
+		if (existing >= 0) return existing;
+		if (segmentCount == segments.length) segments = Arrays.copyOf(segments, grow(segmentCount));
+		int row = segmentCount++;
+		segments[row] = name.substring(start, end);
+		segmentIndex.insert(hash, row);
+		return row;
+	}
+
+	private int internNode(int parent, int segment) {
+		int key = nodeKey(parent, segment);
+		int existing = findNode(parent, segment, key);
+		if (existing >= 0) return existing;
+		if (nodeCount == nodeParent.length) {
+			int capacity = grow(nodeCount);
+			nodeParent = Arrays.copyOf(nodeParent, capacity);
+			nodeSegment = Arrays.copyOf(nodeSegment, capacity);
+			nodeHash = Arrays.copyOf(nodeHash, capacity);
+			nodeLength = Arrays.copyOf(nodeLength, capacity);
+		}
+		String name = segments[segment];
+		int row = nodeCount++;
+		nodeParent[row] = parent;
+		nodeSegment[row] = segment;
+		if (parent < 0) {
+			nodeHash[row] = name.hashCode();
+			nodeLength[row] = name.length();
+		} else {
+			nodeHash[row] = (nodeHash[parent] * 31 + '.') * pow31(name.length()) + name.hashCode();
+			nodeLength[row] = nodeLength[parent] + 1 + name.length();
+		}
+		nodeIndex.insert(key, row);
+		return row;
+	}
+
+	private static boolean regionMatches(CharSequence name, int start, String segment) {
+		if (start < 0) return false;
+		for (int i = 0; i < segment.length(); i++) {
+			if (name.charAt(start + i) != segment.charAt(i)) return false;
+		}
+		return true;
+	}
+
+	private static int hashRegion(String name, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) hash = 31 * hash + name.charAt(i);
+		return hash;
+	}
+
+	private static int nodeKey(int parent, int segment) {
+		return parent * 0x01000193 ^ segment;
+	}
+
+	private static int grow(int size) {
+		return Math.max(16, size + (size >>> 1));
+	}
+
+	/**
+	 * Computes 31 to the power of n, overflowing the same way String.hashCode does.
+	 */
+	static int pow31(int n) {
+		int result = 1;
+		int base = 31;
+		while (n > 0) {
+			if ((n & 1) != 0) result *= base;
+			base *= base;
+			n >>>= 1;
+		}
+		return result;
+	}
+
+	static long ref(int node, int descriptor) {
+		return ((long)node << 32) | (descriptor + 1 & 0xFFFFFFFFL);
+	}
+
+	static int node(long ref) {
+		return (int)(ref >>> 32);
+	}
+
+	static int descriptor(long ref) {
+		return (int)ref - 1;
+	}
+}
@@ -0,0 +1,33 @@
+package net.acomputerdog.OBFUtil.table;
+
+/**
+ * One of the three names a table can hold for each entry.
+ */
+public enum Namespace {
+	/**
+	 * The obfuscated name
+	 */
+	OBF,
+	/**
+	 * The searge name
+	 */
+	SRG,
+	/**
+	 * The deobfuscated name
+	 */
+	DEOBF;
+
+	/**
+	 * Picks the name belonging to this namespace out of an entry.
+	 */
+	public String pick(String obf, String srg, String deobf) {
+		switch (this) {
+			case OBF:
+				return obf;
+			case SRG:
+				return srg;
+			default:
+				return deobf;
+		}
+	}
+}
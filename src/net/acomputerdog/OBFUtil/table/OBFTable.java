@@ -1,5 +1,13 @@
 package net.acomputerdog.OBFUtil.table;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
 import net.acomputerdog.OBFUtil.map.TargetType;
 
 /**
@@ -70,6 +78,123 @@ public interface OBFTable {
      */
     public String[] getAllDeobf(TargetType type);
 
+    /**
+     * Gets the obfuscated names of all entries owned by an obfuscated class or package.
+     * <p>
+     * A class is owned by its package, a field, method or constructor by its class.
+     *
+     * @param obfOwner	The obfuscated name of the owner.
+     * @param type		The type of the entries to get.
+     * @return Return an array of Strings representing the obfuscated names of all matching entries.
+     */
+    public default String[] getObfMembers(String obfOwner, TargetType type) {
+        return MappingHierarchy.filterByOwner(getAllObf(type), obfOwner);
+    }
+    
+    /**
+     * Gets the deobfuscated names of all entries owned by a deobfuscated class or package.
+     * <p>
+     * A class is owned by its package, a field, method or constructor by its class.
+     *
+     * @param deobfOwner	The deobfuscated name of the owner.
+     * @param type			The type of the entries to get.
+     * @return Return an array of Strings representing the deobfuscated names of all matching entries.
+     */
+    public default String[] getDeobfMembers(String deobfOwner, TargetType type) {
+        return MappingHierarchy.filterByOwner(getAllDeobf(type), deobfOwner);
+    }
+
+    /**
+     * Passes every entry of a TargetType to a visitor, without copying the names out into arrays first.
+     * The table must not be modified while it is being visited.
+     *
+     * @param type		The type to visit.
+     * @param visitor	The visitor to pass the entries to.
+     * @throws IllegalArgumentException if this table has no entries of that type.
+     */
+    public default <E extends Exception> void forEach(TargetType type, EntryVisitor<E> visitor) throws E {
+        OBFTableSRG srgTable = this instanceof OBFTableSRG ? (OBFTableSRG)this : null;
+        for (String obf : getAllObf(type)) {
+            String deobf = deobf(obf, type);
+            visitor.visit(obf, srgTable == null ? deobf : srgTable.getSRGFromObf(obf, type), deobf);
+        }
+    }
+    
+    /**
+     * Gets a Spliterator over the entries of a TargetType.  Entries without a searge name carry their deobfuscated name instead.
+     * The table must not be modified while the spliterator is in use.
+     *
+     * @param type The type to get.
+     * @throws IllegalArgumentException if this table has no entries of that type.
+     */
+    public default Spliterator<ObfMapSrg.Entry> spliterator(TargetType type) {
+        final List<ObfMapSrg.Entry> entries = new ArrayList<ObfMapSrg.Entry>();
+        forEach(type, new EntryVisitor<RuntimeException>() {
+            public void visit(String obf, String srg, String deobf) {
+                entries.add(new MappingEntry(obf, srg, deobf));
+            }
+        });
+        return Spliterators.spliterator(entries, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+    
+    /**
+     * Gets a Stream over the entries of a TargetType.  Call parallel() on the result to process the entries on several threads.
+     *
+     * @param type The type to get.
+     * @throws IllegalArgumentException if this table has no entries of that type.
+     */
+    public default Stream<ObfMapSrg.Entry> entries(TargetType type) {
+        return StreamSupport.stream(spliterator(type), false);
+    }
+
+    /**
+     * Prepares this table to receive the given number of further entries of a TargetType, so that it does not have to grow while they are added.
+     * This is only a hint, tables are free to ignore it.
+     *
+     * @param type			The type that will be added to.
+     * @param additional	The number of entries expected.
+     */
+    public default void ensureCapacity(TargetType type, int additional) {
+    }
+    
+    /**
+     * Adds every entry of a batch, sizing the table for each type before its entries are inserted.
+     * Entries are added in batch order, so with overwrite off the first entry for an obfuscated name wins, with it on the last.
+     *
+     * @param batch		The entries to add.
+     * @param overwrite	If true, overwrite existing mappings.
+     */
+    public default void addAll(MappingBatch batch, boolean overwrite) {
+        OBFTableSRG srgTable = this instanceof OBFTableSRG ? (OBFTableSRG)this : null;
+        for (TargetType type : TargetType.values()) {
+            int count = batch.size(type);
+            if (count == 0) continue;
+            ensureCapacity(type, count);
+            for (int i = 0; i < count; i++) {
+                String obf = batch.getObf(type, i);
+                if (overwrite || !hasObf(obf, type)) {
+                    if (srgTable != null) {
+                        srgTable.addTypeSRG(obf, batch.getSRG(type, i), batch.getDeobf(type, i), type);
+                    } else {
+                        addType(obf, batch.getDeobf(type, i), type);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Removes the mapping of an obfuscated name.
+     *
+     * @param obfName The obfuscated name.
+     * @param type The type to remove from.
+     * @return Return true if the mapping was defined, false otherwise.
+     * @throws UnsupportedOperationException if this table can not remove entries.
+     */
+    public default boolean removeObf(String obfName, TargetType type) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support removing entries");
+    }
+    
     /**
      * Write the contents of this table to another table.
      * @param table The table to write to.
@@ -81,4 +206,72 @@ public interface OBFTable {
      * Gets the total number of obfuscation entries in this table.
      */
     public int size();
+    
+    /**
+     * Gets the deobfuscated name of a member given as separate parts.
+     *
+     * @param obfOwner The obfuscated owner, or null.  Either '.' or '/' may separate packages.
+     * @param obfName The obfuscated simple name.
+     * @param obfDescriptor The obfuscated descriptor, or null for fields and classes.
+     * @param type The type of obfuscation to get.
+     * @return Return the deobfuscated name, or null if the mapping is not defined.
+     */
+    public default String deobf(CharSequence obfOwner, CharSequence obfName, CharSequence obfDescriptor, TargetType type) {
+        return deobf(new MemberKey(obfOwner, obfName, obfDescriptor), type);
+    }
+
+    /**
+     * Gets the obfuscated name of a member given as separate parts.
+     *
+     * @param deobfOwner The deobfuscated owner, or null.  Either '.' or '/' may separate packages.
+     * @param deobfName The deobfuscated simple name.
+     * @param deobfDescriptor The deobfuscated descriptor, or null for fields and classes.
+     * @param type The type of obfuscation to get.
+     * @return Return the obfuscated name, or null if the mapping is not defined.
+     */
+    public default String obf(CharSequence deobfOwner, CharSequence deobfName, CharSequence deobfDescriptor, TargetType type) {
+        return obf(new MemberKey(deobfOwner, deobfName, deobfDescriptor), type);
+    }
+
+    /**
+     * Gets the deobfuscated name of a member key.
+     * Tables backed by hashed or pooled keys probe with the key as it is, others convert it to a string first.
+     */
+    public default String deobf(MemberKey obfKey, TargetType type) {
+        return deobf(obfKey.toString(), type);
+    }
+
+    /**
+     * Gets the obfuscated name of a member key.
+     * Tables backed by hashed or pooled keys probe with the key as it is, others convert it to a string first.
+     */
+    public default String obf(MemberKey deobfKey, TargetType type) {
+        return obf(deobfKey.toString(), type);
+    }
+
+    /**
+     * Gets a counter that changes whenever this table is modified, for callers that cache results derived from the table.
+     * Tables that can not be modified may return a constant.
+     *
+     * @return The counter, or -1 if this table does not track modifications.
+     */
+    public default int getModCount() {
+        return -1;
+    }
+    
+    /**
+     * Gets a view of this table with the obfuscated and deobfuscated names swapped.
+     * The view shares the indices of this table and follows its changes, writes to it go through to this table.
+     */
+    public default OBFTable inverse() {
+        return new InverseOBFTable(this);
+    }
+    
+    /**
+     * Builds an index of the deobfuscated names in this table grouped by package and class.
+     * The index is a snapshot and does not follow later changes to the table.
+     */
+    public default MappingHierarchy getHierarchy() {
+        return new MappingHierarchy(this);
+    }
 }
@@ -20,4 +20,34 @@ public interface OBFTableSRG extends OBFTable {
     public boolean hasSRG(String srgName, TargetType type);
     
     public String[] getAllSRG(TargetType type);
+    
+    /**
+     * Gets the searge names of all entries owned by a class or package with the given searge name.
+     *
+     * @param srgOwner	The searge name of the owner.
+     * @param type		The type of the entries to get.
+     */
+    public default String[] getSRGMembers(String srgOwner, TargetType type) {
+        return MappingHierarchy.filterByOwner(getAllSRG(type), srgOwner);
+    }
+
+    /**
+     * Gets a view of this table with the obfuscated and deobfuscated names swapped.  Searge names stay in place.
+     */
+    @Override
+    public default OBFTableSRG inverse() {
+        return permute(Namespace.DEOBF, Namespace.SRG, Namespace.OBF);
+    }
+    
+    /**
+     * Gets a view of this table with its names rearranged.
+     * The view shares the indices of this table and follows its changes, writes to it go through to this table.
+     *
+     * @param obf	The names of this table to use as obfuscated names.
+     * @param srg	The names of this table to use as searge names.
+     * @param deobf	The names of this table to use as deobfuscated names.
+     */
+    public default OBFTableSRG permute(Namespace obf, Namespace srg, Namespace deobf) {
+        return PermutedOBFTableSRG.of(this, obf, srg, deobf);
+    }
 }
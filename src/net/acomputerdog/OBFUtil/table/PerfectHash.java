@@ -0,0 +1,112 @@
+package net.acomputerdog.OBFUtil.table;
+
+/**
+ * Minimal perfect hash function over a fixed set of distinct int hashes, built using hash-and-displace.
+ * <p>
+ * Every hash in the set maps to a unique slot in [0, size).  Hashes outside of the set map to an arbitrary slot,
+ * so callers must verify the key stored at the resulting slot.
+ */
+final class PerfectHash {
+	private static final int MAX_ATTEMPTS = 1 << 20;
+
+	private final int[] displacements;
+	private final int size;
+
+	/**
+	 * Builds a perfect hash for the given hashes.
+	 *
+	 * @param hashes	The hashes to map.  Must not contain duplicates.
+	 */
+	PerfectHash(int[] hashes) {
+		size = hashes.length;
+		int buckets = (size >>> 1) + 1;
+		displacements = new int[buckets];
+		if (size == 0) return;
+
+		int[] bucketStart = new int[buckets + 1];
+		for (int hash : hashes) bucketStart[bucket(hash, buckets) + 1]++;
+		int largest = 0;
+		for (int i = 0; i < buckets; i++) {
+			largest = Math.max(largest, bucketStart[i + 1]);
+			bucketStart[i + 1] += bucketStart[i];
+		}
+		int[] members = new int[size];
+		int[] fill = bucketStart.clone();
+		for (int hash : hashes) members[fill[bucket(hash, buckets)]++] = hash;
+
+		boolean[] taken = new boolean[size];
+		int[] slots = new int[largest];
+		for (int bucketSize = largest; bucketSize > 1; bucketSize--) {
+			for (int bucket = 0; bucket < buckets; bucket++) {
+				if (bucketStart[bucket + 1] - bucketStart[bucket] == bucketSize) {
+					displacements[bucket] = place(members, bucketStart[bucket], bucketSize, taken, slots);
+				}
+			}
+		}
+		int free = 0;
+		for (int bucket = 0; bucket < buckets; bucket++) {
+			if (bucketStart[bucket + 1] - bucketStart[bucket] == 1) {
+				while (taken[free]) free++;
+				taken[free] = true;
+				displacements[bucket] = -free - 1;
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of slots this function maps to.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the slot for a hash.
+	 */
+	int slot(int hash) {
+		int displacement = displacements[bucket(hash, displacements.length)];
+		return displacement < 0 ? -displacement - 1 : slot(hash, displacement, size);
+	}
+
+	private static int place(int[] members, int start, int count, boolean[] taken, int[] slots) {
+		int size = taken.length;
+		for (int displacement = 1; displacement < MAX_ATTEMPTS; displacement++) {
+			boolean placed = true;
+			for (int i = 0; i < count && placed; i++) {
+				int slot = slot(members[start + i], displacement, size);
+				if (taken[slot]) {
+					placed = false;
+				} else {
+					for (int j = 0; j < i; j++) {
+						if (slots[j] == slot) {
+							placed = false;
+							break;
+						}
+					}
+				}
+				slots[i] = slot;
+			}
+			if (placed) {
+				for (int i = 0; i < count; i++) taken[slots[i]] = true;
+				return displacement;
+			}
+		}
+		throw new IllegalStateException("Unable to build a perfect hash for " + size + " keys");
+	}
+
+	private static int bucket(int hash, int buckets) {
+		return (mix(hash) & Integer.MAX_VALUE) % buckets;
+	}
+
+	private static int slot(int hash, int displacement, int size) {
+		return (mix(hash + displacement * 0x9E3779B9) & Integer.MAX_VALUE) % size;
+	}
+
+	private static int mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,230 @@
+package net.acomputerdog.OBFUtil.table;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+
+/**
+ * A view of an OBFTableSRG with its three names rearranged, for example to turn an obf-srg-deobf table into a srg-obf-deobf one.
+ * <p>
+ * Every lookup is answered by the matching lookup of the underlying table, nothing is copied.
+ * Writes go through to the underlying table with their names put back in place.
+ * Plain {@link #addType} calls treat the searge name of the new entry as equal to its deobfuscated name.
+ */
+public class PermutedOBFTableSRG implements OBFTableSRG {
+	protected final OBFTableSRG table;
+	protected final Namespace obf;
+	protected final Namespace srg;
+	protected final Namespace deobf;
+
+	/**
+	 * Creates a view.
+	 *
+	 * @param table	The underlying table
+	 * @param obf	The names of the underlying table to use as obfuscated names
+	 * @param srg	The names of the underlying table to use as searge names
+	 * @param deobf	The names of the underlying table to use as deobfuscated names
+	 */
+	public PermutedOBFTableSRG(OBFTableSRG table, Namespace obf, Namespace srg, Namespace deobf) {
+		if (obf == srg || srg == deobf || obf == deobf) throw new IllegalArgumentException("Not a permutation: " + obf + ", " + srg + ", " + deobf);
+		this.table = table;
+		this.obf = obf;
+		this.srg = srg;
+		this.deobf = deobf;
+	}
+
+	public String deobf(String obfName, TargetType type) {
+		return map(obf, obfName, deobf, type);
+	}
+
+	public String obf(String deobfName, TargetType type) {
+		return map(deobf, deobfName, obf, type);
+	}
+
+	@Override
+	public String deobf(MemberKey obfKey, TargetType type) {
+		if (obf == Namespace.OBF && deobf == Namespace.DEOBF) return table.deobf(obfKey, type);
+		if (obf == Namespace.DEOBF && deobf == Namespace.OBF) return table.obf(obfKey, type);
+		return deobf(obfKey.toString(), type);
+	}
+
+	@Override
+	public String obf(MemberKey deobfKey, TargetType type) {
+		if (obf == Namespace.OBF && deobf == Namespace.DEOBF) return table.obf(deobfKey, type);
+		if (obf == Namespace.DEOBF && deobf == Namespace.OBF) return table.deobf(deobfKey, type);
+		return obf(deobfKey.toString(), type);
+	}
+
+	public String getObfFromSRG(String searge, TargetType type) {
+		return map(srg, searge, obf, type);
+	}
+
+	public String getDeObfFromSRG(String searge, TargetType type) {
+		return map(srg, searge, deobf, type);
+	}
+
+	public String getSRGFromObf(String obfName, TargetType type) {
+		return map(obf, obfName, srg, type);
+	}
+
+	public String getSRGFromDeObf(String deobfName, TargetType type) {
+		return map(deobf, deobfName, srg, type);
+	}
+
+	public void addType(String obfName, String deObfName, TargetType type) {
+		addTypeSRG(obfName, deObfName, deObfName, type);
+	}
+
+	public void addTypeSRG(String obfName, String seargeName, String deObfName, TargetType type) {
+		String[] names = new String[3];
+		names[obf.ordinal()] = obfName;
+		names[srg.ordinal()] = seargeName;
+		names[deobf.ordinal()] = deObfName;
+		table.addTypeSRG(names[0], names[1], names[2], type);
+	}
+
+	public boolean removeObf(String obfName, TargetType type) {
+		if (obf == Namespace.OBF) return table.removeObf(obfName, type);
+		String baseObf = table.supportsType(type) ? map(obf, obfName, Namespace.OBF, type) : null;
+		return baseObf != null && table.removeObf(baseObf, type);
+	}
+
+	public boolean hasObf(String obfName, TargetType type) {
+		return has(obf, obfName, type);
+	}
+
+	public boolean hasSRG(String srgName, TargetType type) {
+		return has(srg, srgName, type);
+	}
+
+	public boolean hasDeobf(String deobfName, TargetType type) {
+		return has(deobf, deobfName, type);
+	}
+
+	public boolean supportsType(TargetType type) {
+		return table.supportsType(type);
+	}
+
+	public String[] getAllObf(TargetType type) {
+		return all(obf, type);
+	}
+
+	public String[] getAllSRG(TargetType type) {
+		return all(srg, type);
+	}
+
+	public String[] getAllDeobf(TargetType type) {
+		return all(deobf, type);
+	}
+
+	public String[] getObfMembers(String obfOwner, TargetType type) {
+		return members(obf, obfOwner, type);
+	}
+
+	public String[] getSRGMembers(String srgOwner, TargetType type) {
+		return members(srg, srgOwner, type);
+	}
+
+	public String[] getDeobfMembers(String deobfOwner, TargetType type) {
+		return members(deobf, deobfOwner, type);
+	}
+
+	public <E extends Exception> void forEach(TargetType type, final EntryVisitor<E> visitor) throws E {
+		table.forEach(type, new EntryVisitor<E>() {
+			public void visit(String o, String s, String d) throws E {
+				visitor.visit(obf.pick(o, s, d), srg.pick(o, s, d), deobf.pick(o, s, d));
+			}
+		});
+	}
+
+	public void writeToTable(final OBFTable table, final boolean overwrite) {
+		final OBFTableSRG srgTable = table instanceof OBFTableSRG ? (OBFTableSRG)table : null;
+		for (final TargetType type : TargetType.values()) {
+			if (!supportsType(type)) continue;
+			forEach(type, new EntryVisitor<RuntimeException>() {
+				public void visit(String obf, String srg, String deobf) {
+					if (overwrite || !table.hasObf(obf, type)) {
+						if (srgTable != null) {
+							srgTable.addTypeSRG(obf, srg, deobf, type);
+						} else {
+							table.addType(obf, deobf, type);
+						}
+					}
+				}
+			});
+		}
+	}
+
+	public int size() {
+		return table.size();
+	}
+
+	public int getModCount() {
+		return table.getModCount();
+	}
+
+	/**
+	 * Rearranges the names of this view.  The result is a view of the underlying table, or the table itself if nothing is moved.
+	 */
+	public OBFTableSRG permute(Namespace obf, Namespace srg, Namespace deobf) {
+		Namespace[] current = {this.obf, this.srg, this.deobf};
+		return PermutedOBFTableSRG.of(table, current[obf.ordinal()], current[srg.ordinal()], current[deobf.ordinal()]);
+	}
+
+	/**
+	 * Creates a view of a table, or returns the table itself for the identity arrangement.
+	 */
+	static OBFTableSRG of(OBFTableSRG table, Namespace obf, Namespace srg, Namespace deobf) {
+		if (obf == Namespace.OBF && srg == Namespace.SRG && deobf == Namespace.DEOBF) return table;
+		return new PermutedOBFTableSRG(table, obf, srg, deobf);
+	}
+
+	private String map(Namespace from, String name, Namespace to, TargetType type) {
+		switch (from) {
+			case OBF:
+				if (to == Namespace.SRG) return table.getSRGFromObf(name, type);
+				if (to == Namespace.DEOBF) return table.deobf(name, type);
+				break;
+			case SRG:
+				if (to == Namespace.OBF) return table.getObfFromSRG(name, type);
+				if (to == Namespace.DEOBF) return table.getDeObfFromSRG(name, type);
+				break;
+			case DEOBF:
+				if (to == Namespace.OBF) return table.obf(name, type);
+				if (to == Namespace.SRG) return table.getSRGFromDeObf(name, type);
+				break;
+		}
+		throw new IllegalStateException("Mapping " + from + " to itself");
+	}
+
+	private boolean has(Namespace namespace, String name, TargetType type) {
+		switch (namespace) {
+			case OBF:
+				return table.hasObf(name, type);
+			case SRG:
+				return table.hasSRG(name, type);
+			default:
+				return table.hasDeobf(name, type);
+		}
+	}
+
+	private String[] all(Namespace namespace, TargetType type) {
+		switch (namespace) {
+			case OBF:
+				return table.getAllObf(type);
+			case SRG:
+				return table.getAllSRG(type);
+			default:
+				return table.getAllDeobf(type);
+		}
+	}
+
+	private String[] members(Namespace namespace, String owner, TargetType type) {
+		switch (namespace) {
+			case OBF:
+				return table.getObfMembers(owner, type);
+			case SRG:
+				return table.getSRGMembers(owner, type);
+			default:
+				return table.getDeobfMembers(owner, type);
+		}
+	}
+}
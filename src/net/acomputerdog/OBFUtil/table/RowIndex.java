@@ -0,0 +1,146 @@
+package net.acomputerdog.OBFUtil.table;
+
+/**
+ * Open-addressing hash index over the rows of a column.
+ * <p>
+ * Slots only hold row numbers, the keys themselves are owned by the column being indexed.
+ * Callers walk the probe sequence themselves using {@link #slot(int)}, {@link #next(int)} and {@link #row(int)}
+ * so that keys can be compared in whatever form the column stores them.
+ */
+final class RowIndex {
+	private static final int MIN_CAPACITY = 16;
+
+	private final Rows rows;
+
+	private int[] slots;
+	private int mask;
+	private int size = 0;
+
+	RowIndex(Rows rows, int expected) {
+		this.rows = rows;
+		allocate(capacityFor(expected));
+	}
+
+	/**
+	 * Gets the number of rows held by this index.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the first slot of the probe sequence for the given hash.
+	 */
+	int slot(int hash) {
+		return mix(hash) & mask;
+	}
+
+	/**
+	 * Gets the slot following the given one in a probe sequence.
+	 */
+	int next(int slot) {
+		return (slot + 1) & mask;
+	}
+
+	/**
+	 * Gets the row stored in a slot, or -1 if the slot is empty.
+	 * An empty slot terminates a probe sequence.
+	 */
+	int row(int slot) {
+		return slots[slot] - 1;
+	}
+
+	/**
+	 * Replaces the row held by an occupied slot.
+	 */
+	void set(int slot, int row) {
+		slots[slot] = row + 1;
+	}
+
+	/**
+	 * Adds a row to this index.  The caller is responsible for making sure it is not already present.
+	 */
+	void insert(int hash, int row) {
+		if (size + 1 > (slots.length >>> 1)) rehash(slots.length << 1);
+		int slot = slot(hash);
+		while (slots[slot] != 0) slot = next(slot);
+		slots[slot] = row + 1;
+		size++;
+	}
+
+	/**
+	 * Removes a row from this index.
+	 *
+	 * @param hash	The hash of the row's key
+	 * @param row	The row to remove
+	 * @return True if the row was present
+	 */
+	boolean remove(int hash, int row) {
+		for (int slot = slot(hash); slots[slot] != 0; slot = next(slot)) {
+			if (slots[slot] == row + 1) {
+				delete(slot);
+				size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Grows the index so that the given number of rows can be held without further rehashing.
+	 */
+	void ensureCapacity(int expected) {
+		int capacity = capacityFor(expected);
+		if (capacity > slots.length) rehash(capacity);
+	}
+
+	private void delete(int hole) {
+		int slot = hole;
+		while (true) {
+			slot = next(slot);
+			if (slots[slot] == 0) break;
+			int home = slot(rows.hashOf(slots[slot] - 1));
+			boolean movable = hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot);
+			if (movable) {
+				slots[hole] = slots[slot];
+				hole = slot;
+			}
+		}
+		slots[hole] = 0;
+	}
+
+	private void rehash(int capacity) {
+		int[] old = slots;
+		allocate(capacity);
+		for (int i = 0; i < old.length; i++) {
+			if (old[i] != 0) {
+				int slot = slot(rows.hashOf(old[i] - 1));
+				while (slots[slot] != 0) slot = next(slot);
+				slots[slot] = old[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		slots = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	private static int capacityFor(int expected) {
+		int capacity = MIN_CAPACITY;
+		while (capacity >>> 1 < expected) capacity <<= 1;
+		return capacity;
+	}
+
+	static int mix(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Supplies the hashes of indexed rows when the index has to move them.
+	 */
+	interface Rows {
+		int hashOf(int row);
+	}
+}
@@ -0,0 +1,55 @@
+package net.acomputerdog.OBFUtil.table;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
+
+/**
+ * Spliterator over a range of rows in a table that stores its entries in arrays.  Splits in half by row.
+ */
+abstract class RowSpliterator implements Spliterator<ObfMapSrg.Entry> {
+	private int origin;
+	private final int fence;
+
+	RowSpliterator(int origin, int fence) {
+		this.origin = origin;
+		this.fence = fence;
+	}
+
+	/**
+	 * Creates the entry held by a row.
+	 */
+	protected abstract ObfMapSrg.Entry entry(int row);
+
+	/**
+	 * Creates a spliterator of the same kind over another range.
+	 */
+	protected abstract RowSpliterator range(int origin, int fence);
+
+	public boolean tryAdvance(Consumer<? super ObfMapSrg.Entry> action) {
+		if (origin >= fence) return false;
+		action.accept(entry(origin++));
+		return true;
+	}
+
+	public void forEachRemaining(Consumer<? super ObfMapSrg.Entry> action) {
+		while (origin < fence) action.accept(entry(origin++));
+	}
+
+	public Spliterator<ObfMapSrg.Entry> trySplit() {
+		int middle = (origin + fence) >>> 1;
+		if (middle <= origin) return null;
+		RowSpliterator prefix = range(origin, middle);
+		origin = middle;
+		return prefix;
+	}
+
+	public long estimateSize() {
+		return fence - origin;
+	}
+
+	public int characteristics() {
+		return ORDERED | SIZED | SUBSIZED | DISTINCT | NONNULL;
+	}
+}
@@ -0,0 +1,309 @@
+package net.acomputerdog.OBFUtil.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+import net.acomputerdog.OBFUtil.parse.types.ONFParser.DetectedTransformation;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+
+/**
+ * The access transformations of an ONF load compiled for lookup by class, as needed when transforming classes while they load.
+ * <p>
+ * Directive strings are decoded once into bitmasks of the constants below.  Rules applied to a whole class are merged into the rules
+ * of each of its members up front, so finding the access of a member costs one lookup for its class and one for the member.
+ * Classes can be looked up by deobfuscated name, or by obfuscated name if the index was built with a table.
+ * Either '.' or '/' may separate packages.
+ * <p>
+ * Where several rules apply to the same member the most visible access level wins, and removing final wins over adding it.
+ * Transformations that can not be understood are left out and listed by {@link #getRejected()}, the rest are still indexed.
+ * The index is not modified after it is built and may be shared between threads.
+ */
+public class AccessTransformerIndex {
+	public static final int PUBLIC = 0x1;
+	public static final int PROTECTED = 0x2;
+	public static final int PACKAGE = 0x4;
+	public static final int PRIVATE = 0x8;
+	public static final int ACCESS_MASK = PUBLIC | PROTECTED | PACKAGE | PRIVATE;
+
+	public static final int REMOVE_FINAL = 0x10;
+	public static final int ADD_FINAL = 0x20;
+
+	private static final int ACC_PUBLIC = 0x1;
+	private static final int ACC_PRIVATE = 0x2;
+	private static final int ACC_PROTECTED = 0x4;
+	private static final int ACC_FINAL = 0x10;
+
+	private final Map<String, ClassRules> deobfClasses = new HashMap<String, ClassRules>();
+	private final Map<String, ClassRules> obfClasses = new HashMap<String, ClassRules>();
+	private final List<DetectedTransformation> rejected = new ArrayList<DetectedTransformation>();
+
+	/**
+	 * Builds an index with deobfuscated names only.
+	 */
+	public AccessTransformerIndex(Collection<? extends DetectedTransformation> transformations) {
+		this(transformations, null);
+	}
+
+	/**
+	 * Builds an index.
+	 *
+	 * @param transformations	The transformations found by an ONF load
+	 * @param table				The table the file was loaded into, used to also index the obfuscated names.  May be null.
+	 */
+	public AccessTransformerIndex(Collection<? extends DetectedTransformation> transformations, OBFTable table) {
+		for (DetectedTransformation transformation : transformations) {
+			try {
+				add(transformation, table);
+			} catch (IllegalArgumentException e) {
+				rejected.add(transformation);
+			}
+		}
+		for (ClassRules rules : deobfClasses.values()) rules.mergeGlobals();
+		for (ClassRules rules : obfClasses.values()) rules.mergeGlobals();
+	}
+
+	/**
+	 * Indexes a single transformation.  Everything that can fail is checked before the index is changed.
+	 *
+	 * @throws IllegalArgumentException if the transformation can not be understood
+	 */
+	private void add(DetectedTransformation transformation, OBFTable table) {
+		boolean method;
+		switch (transformation.targetType) {
+			case FIELD:
+				method = false;
+				break;
+			case METHOD:
+			case CONSTRUCTOR:
+				method = true;
+				break;
+			default:
+				throw new IllegalArgumentException("Access transformations can not target a " + transformation.targetType);
+		}
+		int access = decode(transformation.directives);
+		String target = transformation.mcpTarget;
+		if (transformation.isGlobal) {
+			getOrCreate(deobfClasses, target).addGlobal(method, access);
+			String obfClass = table == null ? null : table.obf(target, TargetType.CLASS);
+			if (obfClass != null) getOrCreate(obfClasses, obfClass).addGlobal(method, access);
+		} else {
+			int owner = ownerEnd(target);
+			String obfTarget = table == null || !table.supportsType(transformation.targetType) ? null : table.obf(target, transformation.targetType);
+			int obfOwner = obfTarget == null ? -1 : ownerEnd(obfTarget);
+			getOrCreate(deobfClasses, target.substring(0, owner)).addMember(method, target.substring(owner + 1), access);
+			if (obfTarget != null) {
+				getOrCreate(obfClasses, obfTarget.substring(0, obfOwner)).addMember(method, obfTarget.substring(obfOwner + 1), access);
+			}
+		}
+	}
+
+	/**
+	 * Gets the transformations left out of this index because they could not be understood.
+	 */
+	public List<DetectedTransformation> getRejected() {
+		return Collections.unmodifiableList(rejected);
+	}
+
+	/**
+	 * Gets the rules for a class by its deobfuscated name.
+	 *
+	 * @return The rules, or null if nothing in the class is transformed
+	 */
+	public ClassRules get(String deobfClass) {
+		return deobfClasses.get(deobfClass.replace('/', '.'));
+	}
+
+	/**
+	 * Gets the rules for a class by its obfuscated name.  Member names of the result are obfuscated too.
+	 *
+	 * @return The rules, or null if nothing in the class is transformed or the index was built without a table
+	 */
+	public ClassRules getObf(String obfClass) {
+		return obfClasses.get(obfClass.replace('/', '.'));
+	}
+
+	/**
+	 * Gets the number of classes with rules, by deobfuscated name.
+	 */
+	public int size() {
+		return deobfClasses.size();
+	}
+
+	/**
+	 * Decodes a directive string such as "public", "protected-f" or "+f" into a bitmask.
+	 *
+	 * @throws IllegalArgumentException if the directives are not understood
+	 */
+	public static int decode(String directives) {
+		int access = 0;
+		String rest = directives.trim();
+		if (rest.startsWith("public")) {
+			access = PUBLIC;
+			rest = rest.substring(6);
+		} else if (rest.startsWith("protected")) {
+			access = PROTECTED;
+			rest = rest.substring(9);
+		} else if (rest.startsWith("package")) {
+			access = PACKAGE;
+			rest = rest.substring(7);
+		} else if (rest.startsWith("private")) {
+			access = PRIVATE;
+			rest = rest.substring(7);
+		}
+		if (rest.equals("-f")) {
+			access |= REMOVE_FINAL;
+		} else if (rest.equals("+f")) {
+			access |= ADD_FINAL;
+		} else if (!rest.isEmpty() || access == 0) {
+			throw new IllegalArgumentException("Unknown access directives: \"" + directives + "\"");
+		}
+		return access;
+	}
+
+	/**
+	 * Combines two bitmasks.  The most visible access level of the two is kept, and removing final wins over adding it.
+	 */
+	public static int merge(int a, int b) {
+		int access = Integer.lowestOneBit((a | b) & ACCESS_MASK);
+		if (((a | b) & REMOVE_FINAL) != 0) return access | REMOVE_FINAL;
+		return access | ((a | b) & ADD_FINAL);
+	}
+
+	/**
+	 * Applies a bitmask to the access flags of a class member as found in a class file.
+	 *
+	 * @param access	The access flags of the member
+	 * @return The transformed flags
+	 */
+	public static int apply(int mask, int access) {
+		switch (mask & ACCESS_MASK) {
+			case PUBLIC:
+				access = (access & ~(ACC_PRIVATE | ACC_PROTECTED)) | ACC_PUBLIC;
+				break;
+			case PROTECTED:
+				access = (access & ~(ACC_PRIVATE | ACC_PUBLIC)) | ACC_PROTECTED;
+				break;
+			case PACKAGE:
+				access = access & ~(ACC_PRIVATE | ACC_PROTECTED | ACC_PUBLIC);
+				break;
+			case PRIVATE:
+				access = (access & ~(ACC_PROTECTED | ACC_PUBLIC)) | ACC_PRIVATE;
+				break;
+		}
+		if ((mask & REMOVE_FINAL) != 0) {
+			access &= ~ACC_FINAL;
+		} else if ((mask & ADD_FINAL) != 0) {
+			access |= ACC_FINAL;
+		}
+		return access;
+	}
+
+	private static ClassRules getOrCreate(Map<String, ClassRules> classes, String name) {
+		ClassRules rules = classes.get(name);
+		if (rules == null) {
+			rules = new ClassRules();
+			classes.put(name, rules);
+		}
+		return rules;
+	}
+
+	/**
+	 * Gets the index of the '.' between the owner of a member and its name, ignoring any in its descriptor.
+	 */
+	private static int ownerEnd(String member) {
+		int space = member.indexOf(' ');
+		int dot = member.lastIndexOf('.', space < 0 ? member.length() : space);
+		if (dot < 0) throw new IllegalArgumentException("Member without an owner: \"" + member + "\"");
+		return dot;
+	}
+
+	/**
+	 * The access rules of one class.  Members are named by their simple name, with methods and constructors followed by a space and their descriptor.
+	 */
+	public static final class ClassRules {
+		private int globalFields;
+		private int globalMethods;
+		private final Map<String, Integer> fields = new HashMap<String, Integer>();
+		private final Map<String, Integer> methods = new HashMap<String, Integer>();
+
+		private ClassRules() {
+		}
+
+		/**
+		 * Gets the bitmask for a field, including the rules applied to all fields of the class.
+		 *
+		 * @return The bitmask, or 0 if the field is not transformed
+		 */
+		public int getFieldAccess(String name) {
+			Integer access = fields.get(name);
+			return access == null ? globalFields : access;
+		}
+
+		/**
+		 * Gets the bitmask for a method or constructor, including the rules applied to all methods of the class.
+		 *
+		 * @param nameAndDescriptor	The name of the method, a space and its descriptor, e.g. "setWorld (Lnet/mc/World;)V"
+		 * @return The bitmask, or 0 if the method is not transformed
+		 */
+		public int getMethodAccess(String nameAndDescriptor) {
+			Integer access = methods.get(nameAndDescriptor);
+			return access == null ? globalMethods : access;
+		}
+
+		/**
+		 * Gets the bitmask applied to every field of the class.
+		 */
+		public int getGlobalFieldAccess() {
+			return globalFields;
+		}
+
+		/**
+		 * Gets the bitmask applied to every method of the class.
+		 */
+		public int getGlobalMethodAccess() {
+			return globalMethods;
+		}
+
+		/**
+		 * Gets the bitmasks of fields with rules of their own, with the class rules merged in.
+		 */
+		public Map<String, Integer> getFields() {
+			return Collections.unmodifiableMap(fields);
+		}
+
+		/**
+		 * Gets the bitmasks of methods and constructors with rules of their own, with the class rules merged in.
+		 */
+		public Map<String, Integer> getMethods() {
+			return Collections.unmodifiableMap(methods);
+		}
+
+		private void addGlobal(boolean method, int access) {
+			if (method) {
+				globalMethods = merge(globalMethods, access);
+			} else {
+				globalFields = merge(globalFields, access);
+			}
+		}
+
+		private void addMember(boolean method, String name, int access) {
+			Map<String, Integer> members = method ? methods : fields;
+			Integer previous = members.get(name);
+			members.put(name, previous == null ? access : merge(previous, access));
+		}
+
+		private void mergeGlobals() {
+			if (globalFields != 0) {
+				for (Map.Entry<String, Integer> i : fields.entrySet()) i.setValue(merge(i.getValue(), globalFields));
+			}
+			if (globalMethods != 0) {
+				for (Map.Entry<String, Integer> i : methods.entrySet()) i.setValue(merge(i.getValue(), globalMethods));
+			}
+		}
+	}
+}
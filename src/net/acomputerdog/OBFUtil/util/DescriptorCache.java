@@ -0,0 +1,188 @@
+package net.acomputerdog.OBFUtil.util;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.acomputerdog.OBFUtil.table.OBFTable;
+
+/**
+ * A bounded, thread-safe least-recently-used cache of remapped descriptors.
+ * <p>
+ * Entries are keyed by the identity of the table, the direction of the remap, the descriptor and the table's
+ * {@link OBFTable#getModCount() modification count}.  Modifying a table therefore makes all of its entries unreachable,
+ * they are evicted as newer entries push them out.  Tables that do not track modifications are never cached.
+ * <p>
+ * The cache is split into stripes chosen by key hash, each with its own lock and an equal share of the capacity,
+ * so a lookup costs one hash probe in one lightly contended map.
+ * Cached keys refer to their tables weakly, so the cache never keeps a table alive.  Entries of a table that has been
+ * collected can not be hit again and are evicted like those of a modified table.
+ */
+public class DescriptorCache {
+	private static final int STRIPES = 16;
+
+	private final Stripe[] stripes = new Stripe[STRIPES];
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param maxSize	The maximum number of descriptors to hold, rounded up to a multiple of the stripe count
+	 */
+	public DescriptorCache(int maxSize) {
+		if (maxSize < 1) throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+		int stripeSize = Math.max(1, (maxSize + STRIPES - 1) / STRIPES);
+		for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe(stripeSize);
+	}
+
+	/**
+	 * Checks if remaps against a table can be cached at all.
+	 */
+	public boolean accepts(OBFTable table) {
+		return table.getModCount() >= 0;
+	}
+
+	/**
+	 * Gets a cached remap.
+	 *
+	 * @param table			The table the descriptor was remapped against
+	 * @param obfuscate		True for deobfuscated to obfuscated, false for the other direction
+	 * @param descriptor	The original descriptor
+	 * @return The remapped descriptor, or null if it is not cached
+	 */
+	public String get(OBFTable table, boolean obfuscate, String descriptor) {
+		int modCount = table.getModCount();
+		if (modCount < 0) return null;
+		Key key = new Key(table, null, obfuscate, descriptor, modCount);
+		Stripe stripe = stripe(key);
+		String result;
+		synchronized (stripe) {
+			result = stripe.get(key);
+		}
+		if (result == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return result;
+	}
+
+	/**
+	 * Stores a remap.
+	 *
+	 * @param modCount	The modification count of the table at the time the remap was started
+	 */
+	public void put(OBFTable table, boolean obfuscate, String descriptor, int modCount, String remapped) {
+		if (modCount < 0) return;
+		Key key = new Key(null, new WeakReference<OBFTable>(table), obfuscate, descriptor, modCount);
+		Stripe stripe = stripe(key);
+		synchronized (stripe) {
+			stripe.put(key, remapped);
+		}
+	}
+
+	/**
+	 * Removes all entries.  Hit and miss counts are kept.
+	 */
+	public void clear() {
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of descriptors currently held.
+	 */
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the fraction of lookups that were answered from the cache, or 0 if there have been none.
+	 */
+	public double getHitRate() {
+		long hits = this.hits.sum();
+		long total = hits + misses.sum();
+		return total == 0 ? 0 : (double)hits / total;
+	}
+
+	private Stripe stripe(Key key) {
+		int hash = key.hash;
+		return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+	}
+
+	private static final class Stripe extends LinkedHashMap<Key, String> {
+		private static final long serialVersionUID = 1L;
+
+		private final int maxSize;
+
+		private Stripe(int maxSize) {
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+			return size() > maxSize;
+		}
+	}
+
+	/**
+	 * Lookup keys hold their table directly, stored keys only through a weak reference.
+	 */
+	private static final class Key {
+		private final OBFTable table;
+		private final WeakReference<OBFTable> weakTable;
+		private final boolean obfuscate;
+		private final String descriptor;
+		private final int modCount;
+		private final int hash;
+
+		private Key(OBFTable table, WeakReference<OBFTable> weakTable, boolean obfuscate, String descriptor, int modCount) {
+			this.table = table;
+			this.weakTable = weakTable;
+			this.obfuscate = obfuscate;
+			this.descriptor = descriptor;
+			this.modCount = modCount;
+			hash = ((descriptor.hashCode() * 31 + System.identityHashCode(table())) * 31 + modCount) * 2 + (obfuscate ? 1 : 0);
+		}
+
+		/**
+		 * Gets the table of this key, or null if it has been collected.
+		 */
+		private OBFTable table() {
+			return table != null ? table : weakTable.get();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) return false;
+			Key other = (Key)obj;
+			OBFTable table = table();
+			return table != null && other.table() == table && other.obfuscate == obfuscate && other.modCount == modCount && other.descriptor.equals(descriptor);
+		}
+	}
+}
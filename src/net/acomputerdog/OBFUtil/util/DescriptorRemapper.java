@@ -0,0 +1,231 @@
+package net.acomputerdog.OBFUtil.util;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+import net.acomputerdog.OBFUtil.table.MemberKey;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+
+/**
+ * Translates the class names inside JVM descriptors and generic signatures between their obfuscated and deobfuscated forms.
+ * <p>
+ * The descriptor is scanned once, left to right, into a builder that is reused between calls.
+ * Primitive and array types are copied as they are and each class reference costs a single table lookup,
+ * made through a reused {@link MemberKey} so that unmapped classes never become strings of their own.
+ * Descriptors that contain no mapped classes are returned without creating a new string.
+ * <p>
+ * Accepts field and method descriptors as well as field, method and class signatures, including formal type parameters,
+ * type arguments, wildcards, type variables, inner class suffixes and throws clauses.
+ * Classes missing from the table are left unchanged.
+ * <p>
+ * Instances are not thread-safe, use one per thread.
+ */
+public class DescriptorRemapper {
+	private final StringBuilder out = new StringBuilder(64);
+	private final StringBuilder key = new StringBuilder(64);
+	private final MemberKey classKey = new MemberKey();
+
+	private CharSequence descriptor;
+	private int position;
+	private int length;
+	private OBFTable table;
+	private boolean obfuscate;
+	private boolean changed;
+
+	/**
+	 * Converts a descriptor from deobfuscated to obfuscated class names.
+	 */
+	public String obfuscate(String descriptor, OBFTable table) {
+		return remap(descriptor, table, true);
+	}
+
+	/**
+	 * Converts a descriptor from obfuscated to deobfuscated class names.
+	 */
+	public String deobfuscate(String descriptor, OBFTable table) {
+		return remap(descriptor, table, false);
+	}
+
+	/**
+	 * Converts a descriptor from deobfuscated to obfuscated class names, appending the result to a builder.
+	 */
+	public void obfuscate(CharSequence descriptor, OBFTable table, StringBuilder result) {
+		run(descriptor, table, true);
+		result.append(out);
+	}
+
+	/**
+	 * Converts a descriptor from obfuscated to deobfuscated class names, appending the result to a builder.
+	 */
+	public void deobfuscate(CharSequence descriptor, OBFTable table, StringBuilder result) {
+		run(descriptor, table, false);
+		result.append(out);
+	}
+
+	private String remap(String descriptor, OBFTable table, boolean obfuscate) {
+		run(descriptor, table, obfuscate);
+		return changed ? out.toString() : descriptor;
+	}
+
+	private void run(CharSequence descriptor, OBFTable table, boolean obfuscate) {
+		this.descriptor = descriptor;
+		this.table = table.supportsType(TargetType.CLASS) ? table : null;
+		this.obfuscate = obfuscate;
+		position = 0;
+		length = descriptor.length();
+		changed = false;
+		out.setLength(0);
+		try {
+			if (length == 0) throw invalid();
+			if (descriptor.charAt(0) == '<') formalTypeParameters();
+			if (position < length && descriptor.charAt(position) == '(') {
+				method();
+			} else {
+				while (position < length) type();
+			}
+		} catch (IndexOutOfBoundsException e) {
+			throw invalid();
+		} finally {
+			this.descriptor = null;
+			this.table = null;
+		}
+	}
+
+	private void method() {
+		append(); // (
+		while (descriptor.charAt(position) != ')') type();
+		append(); // )
+		if (position >= length) throw new IllegalArgumentException("Missing return type for \"" + descriptor + "\"");
+		type();
+		while (position < length) {
+			if (descriptor.charAt(position) != '^') throw invalid();
+			append();
+			type();
+		}
+	}
+
+	private void formalTypeParameters() {
+		append(); // <
+		while (descriptor.charAt(position) != '>') {
+			while (descriptor.charAt(position) != ':') append();
+			while (position < length && descriptor.charAt(position) == ':') {
+				append();
+				char next = descriptor.charAt(position);
+				if (next == 'L' || next == 'T' || next == '[') type();
+			}
+		}
+		append(); // >
+	}
+
+	private void type() {
+		char c = descriptor.charAt(position);
+		switch (c) {
+			case '[':
+				append();
+				type();
+				return;
+			case 'L':
+				classType();
+				return;
+			case 'T':
+				while (descriptor.charAt(position) != ';') append();
+				append();
+				return;
+			case 'B':
+			case 'C':
+			case 'D':
+			case 'F':
+			case 'I':
+			case 'J':
+			case 'S':
+			case 'Z':
+			case 'V':
+				append();
+				return;
+			default:
+				throw invalid();
+		}
+	}
+
+	private void classType() {
+		append(); // L
+		int start = position;
+		while (!isClassEnd(descriptor.charAt(position))) position++;
+		key.setLength(0);
+		key.append(descriptor, start, position);
+		String mapped = lookup();
+		if (mapped == null) {
+			out.append(descriptor, start, position);
+		} else {
+			appendSlashed(mapped, 0);
+		}
+		while (true) {
+			char c = descriptor.charAt(position);
+			if (c == ';') {
+				append();
+				return;
+			} else if (c == '<') {
+				typeArguments();
+			} else if (c == '.') {
+				append();
+				int innerStart = position;
+				while (!isClassEnd(descriptor.charAt(position))) position++;
+				// Inner classes are named relative to their outer class, Outer$Inner is written as Outer<..>.Inner
+				if (mapped == null) mapped = key.toString().replace('/', '.');
+				key.append('$').append(descriptor, innerStart, position);
+				String mappedInner = lookup();
+				if (mappedInner != null && mappedInner.length() > mapped.length() + 1 && mappedInner.startsWith(mapped) && mappedInner.charAt(mapped.length()) == '$') {
+					appendSlashed(mappedInner, mapped.length() + 1);
+					mapped = mappedInner;
+				} else {
+					out.append(descriptor, innerStart, position);
+					mapped = mapped + '$' + descriptor.subSequence(innerStart, position);
+				}
+			} else {
+				throw invalid();
+			}
+		}
+	}
+
+	private void typeArguments() {
+		append(); // <
+		while (descriptor.charAt(position) != '>') {
+			char c = descriptor.charAt(position);
+			if (c == '*') {
+				append();
+			} else {
+				if (c == '+' || c == '-') append();
+				type();
+			}
+		}
+		append(); // >
+	}
+
+	private String lookup() {
+		if (table == null) return null;
+		classKey.set(null, key, null);
+		String mapped = obfuscate ? table.obf(classKey, TargetType.CLASS) : table.deobf(classKey, TargetType.CLASS);
+		if (mapped != null && !classKey.contentEquals(mapped)) {
+			changed = true;
+			return mapped;
+		}
+		return null;
+	}
+
+	private void append() {
+		out.append(descriptor.charAt(position++));
+	}
+
+	private void appendSlashed(String name, int start) {
+		for (int i = start; i < name.length(); i++) {
+			char c = name.charAt(i);
+			out.append(c == '.' ? '/' : c);
+		}
+	}
+
+	private static boolean isClassEnd(char c) {
+		return c == ';' || c == '<' || c == '.';
+	}
+
+	private IllegalArgumentException invalid() {
+		return new IllegalArgumentException("Invalid descriptor \"" + descriptor + "\"");
+	}
+}
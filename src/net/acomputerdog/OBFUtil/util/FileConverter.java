@@ -1,7 +1,7 @@
 package net.acomputerdog.OBFUtil.util;
 
 import net.acomputerdog.OBFUtil.parse.FileParser;
-import net.acomputerdog.OBFUtil.table.DirectOBFTable;
+import net.acomputerdog.OBFUtil.table.ColumnarOBFTable;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 
 import java.io.File;
@@ -21,9 +21,8 @@ public class FileConverter {
      * @param outFile The output file
      * @throws IOException If an IO error occurs
      */
-    @SuppressWarnings("rawtypes")
-	public static void convert(FileParser in, FileParser out, File inFile, File outFile) throws IOException {
-        OBFTable table = new DirectOBFTable();
+    public static void convert(FileParser in, FileParser out, File inFile, File outFile) throws IOException {
+        OBFTable table = new ColumnarOBFTable();
         in.loadEntries(inFile, table, true);
         out.storeEntries(outFile, table);
     }
@@ -0,0 +1,131 @@
+package net.acomputerdog.OBFUtil.util;
+
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.StreamSupport;
+
+import net.acomputerdog.OBFUtil.map.ObfMapSrg;
+import net.acomputerdog.OBFUtil.map.TargetType;
+import net.acomputerdog.OBFUtil.table.ColumnarOBFTableSRG;
+import net.acomputerdog.OBFUtil.table.MappingBatch;
+import net.acomputerdog.OBFUtil.table.MappingEntry;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.table.OBFTableSRG;
+
+/**
+ * Chains two tables that share a middle namespace, such as obf to searge and searge to MCP, into a single obf-searge-deobf table.
+ * <p>
+ * Every entry of the first table is joined against the index of the second by its deobfuscated (middle) name.
+ * Members whose full name is not in the second table are joined by their simple name instead, which is how MCP csv tables are keyed;
+ * their owner is then translated through the classes of the second table and their descriptor is remapped against it.
+ * Entries are translated in parallel and inserted in the order of the first table.
+ * <p>
+ * Instances may be shared between threads.  Both tables must not be modified while a composition is running.
+ */
+public class MappingComposer {
+	private final Obfuscator obfuscator = new Obfuscator(4096);
+
+	private boolean joinMemberNames = true;
+	private boolean keepUnmapped = true;
+	private boolean parallel = true;
+
+	/**
+	 * Sets if members missing from the second table by full name should be looked up by their simple name.  On by default.
+	 */
+	public MappingComposer setJoinMemberNames(boolean joinMemberNames) {
+		this.joinMemberNames = joinMemberNames;
+		return this;
+	}
+
+	/**
+	 * Sets if entries that the second table does not map at all are kept, with their middle name as deobfuscated name.  On by default.
+	 */
+	public MappingComposer setKeepUnmapped(boolean keepUnmapped) {
+		this.keepUnmapped = keepUnmapped;
+		return this;
+	}
+
+	/**
+	 * Sets if entries are translated on the common fork-join pool.  On by default.
+	 */
+	public MappingComposer setParallel(boolean parallel) {
+		this.parallel = parallel;
+		return this;
+	}
+
+	/**
+	 * Composes two tables into a new table.
+	 *
+	 * @param first		Maps obfuscated names to middle names.  If it is a searge table its searge names are ignored.
+	 * @param second	Maps middle names to deobfuscated names.
+	 * @return A table holding the obfuscated names of the first table, the middle names as searge names and the deobfuscated names of the second.
+	 */
+	public OBFTableSRG compose(OBFTable first, OBFTable second) {
+		OBFTableSRG result = new ColumnarOBFTableSRG();
+		compose(first, second, result, true);
+		return result;
+	}
+
+	/**
+	 * Composes two tables into an existing table.
+	 *
+	 * @param first		Maps obfuscated names to middle names.
+	 * @param second	Maps middle names to deobfuscated names.
+	 * @param dest		The table to add the composed entries to.
+	 * @param overwrite	If true, overwrite existing mappings in dest.
+	 */
+	public void compose(OBFTable first, final OBFTable second, OBFTableSRG dest, boolean overwrite) {
+		MappingBatch batch = new MappingBatch();
+		for (final TargetType type : TargetType.values()) {
+			if (!first.supportsType(type)) continue;
+			MappingEntry[] entries = StreamSupport.stream(first.spliterator(type), parallel).map(new Function<ObfMapSrg.Entry, MappingEntry>() {
+				public MappingEntry apply(ObfMapSrg.Entry entry) {
+					String mapped = translate(entry.deObf(), second, type);
+					if (mapped == null && !keepUnmapped) return null;
+					return new MappingEntry(entry.obf(), entry.deObf(), mapped == null ? entry.deObf() : mapped);
+				}
+			}).toArray(new IntFunction<MappingEntry[]>() {
+				public MappingEntry[] apply(int size) {
+					return new MappingEntry[size];
+				}
+			});
+			batch.ensureCapacity(type, entries.length);
+			for (MappingEntry entry : entries) {
+				if (entry != null) batch.addTypeSRG(entry.obf(), entry.srg(), entry.deObf(), type);
+			}
+		}
+		dest.addAll(batch, overwrite);
+	}
+
+	/**
+	 * Translates a single middle name through the second table.
+	 *
+	 * @return The deobfuscated name, or null if the second table has nothing for it
+	 */
+	protected String translate(String middle, OBFTable second, TargetType type) {
+		if (second.supportsType(type)) {
+			String mapped = second.deobf(middle, type);
+			if (mapped != null) return mapped;
+		}
+		if (!joinMemberNames || type == TargetType.CLASS || type == TargetType.PACKAGE) return null;
+		int space = middle.indexOf(' ');
+		int end = space < 0 ? middle.length() : space;
+		int dot = middle.lastIndexOf('.', end - 1);
+		String name = null;
+		if (second.supportsType(type)) name = second.deobf(middle.substring(dot + 1, end), type);
+		String owner = dot < 0 ? null : middle.substring(0, dot);
+		String mappedOwner = owner == null || !second.supportsType(TargetType.CLASS) ? null : second.deobf(owner, TargetType.CLASS);
+		String descriptor = space < 0 ? null : middle.substring(space + 1);
+		String mappedDescriptor = descriptor == null ? null : obfuscator.deObfuscateDescriptor(descriptor, second);
+		if (name == null && mappedOwner == null && (mappedDescriptor == null || mappedDescriptor.equals(descriptor))) return null;
+		StringBuilder result = new StringBuilder(middle.length() + 16);
+		if (owner != null) result.append(mappedOwner == null ? owner : mappedOwner).append('.');
+		if (name == null) {
+			result.append(middle, dot + 1, end);
+		} else {
+			result.append(name);
+		}
+		if (descriptor != null) result.append(' ').append(mappedDescriptor);
+		return result.toString();
+	}
+}
@@ -10,9 +10,48 @@ import com.blazeloader.util.regex.Patterns;
 import net.acomputerdog.OBFUtil.map.TargetType;
 import net.acomputerdog.OBFUtil.table.OBFTable;
 
+/**
+ * Helpers for translating member names and descriptors.
+ * <p>
+ * Descriptors are remapped by a {@link DescriptorRemapper} per thread, and optionally remembered in a {@link DescriptorCache}
+ * so that repeated remaps of the same descriptor against an unchanged table are answered by a single cache probe.
+ * Instances may be shared between threads.
+ */
 public class Obfuscator {
 	private static final Pattern DESCRIPTOR_MATCHER = Pattern.compile(Patterns.DESCRIPTOR_PARAMETER);
 	
+	private final ThreadLocal<DescriptorRemapper> remapper = new ThreadLocal<DescriptorRemapper>() {
+		@Override
+		protected DescriptorRemapper initialValue() {
+			return new DescriptorRemapper();
+		}
+	};
+	
+	private final DescriptorCache cache;
+	
+	/**
+	 * Creates an Obfuscator that does not cache descriptors.
+	 */
+	public Obfuscator() {
+		cache = null;
+	}
+	
+	/**
+	 * Creates an Obfuscator that caches up to the given number of remapped descriptors.
+	 */
+	public Obfuscator(int cacheSize) {
+		cache = new DescriptorCache(cacheSize);
+	}
+	
+	/**
+	 * Gets the descriptor cache used by this Obfuscator, for inspecting its hit rate.
+	 *
+	 * @return The cache, or null if caching is disabled
+	 */
+	public DescriptorCache getCache() {
+		return cache;
+	}
+	
 	public String getMemberName(String item) {
 		item = item.split(" ")[0];
 		int lastDot = item.lastIndexOf('.');
@@ -26,25 +65,11 @@ public class Obfuscator {
 	}
 	
 	public String obfuscateDescriptor(String descriptor, OBFTable table) {
-    	String obfuscatedDescriptor = "";
-    	String[] split = descriptor.split("\\)");
-    	List<String> classes = splitDescriptor(split[0]);
-    	if (split.length < 2) throw new IllegalArgumentException("Missing return type for \"" + descriptor + "\"");
-    	for (int j = 0; j < classes.size(); j++) {
-    		obfuscatedDescriptor += obfParameter(classes.get(j), table);
-    	}
-    	return "(" + obfuscatedDescriptor + ")" + obfParameter(split[1], table);
+    	return remap(descriptor.trim(), table, true);
     }
 	
 	public String deObfuscateDescriptor(String descriptor, OBFTable table) {
-    	String obfuscatedDescriptor = "";
-    	String[] split = descriptor.split("\\)");
-    	List<String> classes = splitDescriptor(split[0]);
-    	if (split.length < 2) throw new IllegalArgumentException("Missing return type for \"" + descriptor + "\"");
-    	for (int j = 0; j < classes.size(); j++) {
-    		obfuscatedDescriptor += deObfParameter(classes.get(j), table);
-    	}
-    	return "(" + obfuscatedDescriptor + ")" + deObfParameter(split[1], table);
+    	return remap(descriptor.trim(), table, false);
     }
 	
 	public String obfMemberClass(String item, OBFTable table) {
@@ -56,25 +81,26 @@ public class Obfuscator {
 	}
 	
     public String obfParameter(String item, OBFTable table) {
-    	if (item.endsWith(";")) {
-			String type = extractClass(item);
-			String dotted = type.replace('/','.');
-			if (table.hasDeobf(dotted, TargetType.CLASS)) {
-				return item.replace(type, table.obf(dotted, TargetType.CLASS).replace('.', '/'));
-			}
-		}
-    	return item;
+    	return remap(item, table, true);
     }
     
     public String deObfParameter(String item, OBFTable table) {
-    	if (item.endsWith(";")) {
-			String type = extractClass(item);
-			String dotted = type.replace('/','.');
-			if (table.hasObf(dotted, TargetType.CLASS)) {
-				return item.replace(type, table.deobf(dotted, TargetType.CLASS).replace('.', '/'));
-			}
-		}
-    	return item;
+    	return remap(item, table, false);
+    }
+    
+    private String remap(String descriptor, OBFTable table, boolean obfuscate) {
+    	if (cache == null) return remap(remapper.get(), descriptor, table, obfuscate);
+    	String result = cache.get(table, obfuscate, descriptor);
+    	if (result == null) {
+    		int modCount = table.getModCount();
+    		result = remap(remapper.get(), descriptor, table, obfuscate);
+    		cache.put(table, obfuscate, descriptor, modCount, result);
+    	}
+    	return result;
+    }
+    
+    private static String remap(DescriptorRemapper remapper, String descriptor, OBFTable table, boolean obfuscate) {
+    	return obfuscate ? remapper.obfuscate(descriptor, table) : remapper.deobfuscate(descriptor, table);
     }
     
     public String extractClass(String descriptedClass) {
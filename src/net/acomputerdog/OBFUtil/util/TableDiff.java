@@ -0,0 +1,182 @@
+package net.acomputerdog.OBFUtil.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+
+import net.acomputerdog.OBFUtil.map.TargetType;
+import net.acomputerdog.OBFUtil.parse.FormatException;
+import net.acomputerdog.OBFUtil.table.EntryVisitor;
+import net.acomputerdog.OBFUtil.table.MappingBatch;
+import net.acomputerdog.OBFUtil.table.OBFTable;
+import net.acomputerdog.OBFUtil.table.OBFTableSRG;
+
+/**
+ * Computes and applies the differences between two tables, such as the mappings of two releases.
+ * <p>
+ * Entries are matched by obfuscated name and type.  Each entry of either table is visited once and looked up once in the other table's index,
+ * so a diff costs time linear in the size of both tables.  Searge names are only compared when both tables are searge tables.
+ * <p>
+ * Patches are written as tab separated lines, one per change, following a header line:
+ * <pre>
+ *   + TYPE obf srg deobf   an entry only present in the new table
+ *   - TYPE obf             an entry only present in the old table
+ *   ~ TYPE obf srg deobf   an entry whose names differ, with its new names
+ * </pre>
+ * Lines starting with '#' are comments.
+ */
+public class TableDiff {
+	public static final String HEADER = "# OBFUtil table patch";
+
+	public static enum Change {
+		ADDED('+'),
+		REMOVED('-'),
+		CHANGED('~');
+
+		private final char symbol;
+
+		Change(char symbol) {
+			this.symbol = symbol;
+		}
+
+		public char getSymbol() {
+			return symbol;
+		}
+
+		public static Change getChange(char symbol) {
+			for (Change change : values()) {
+				if (change.symbol == symbol) return change;
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Receives the changes between two tables.
+	 *
+	 * @param <E>	The type of exception the visitor may throw, so writers can pass IOExceptions straight through.
+	 */
+	public static interface Visitor<E extends Exception> {
+
+		/**
+		 * Called once for every changed entry.
+		 *
+		 * @param type		The type of the entry
+		 * @param change	The kind of change
+		 * @param obf		The obfuscated name
+		 * @param srg		The searge name in the new table, or in the old table if the entry was removed
+		 * @param deobf		The deobfuscated name in the new table, or in the old table if the entry was removed
+		 */
+		public void visit(TargetType type, Change change, String obf, String srg, String deobf) throws E;
+	}
+
+	/**
+	 * Passes every difference between two tables to a visitor.  Per type, removed and changed entries come first, in the order of the old table,
+	 * followed by added entries in the order of the new table.
+	 *
+	 * @param from		The old table
+	 * @param to		The new table
+	 * @param visitor	The visitor to pass the changes to
+	 */
+	public static <E extends Exception> void diff(final OBFTable from, final OBFTable to, final Visitor<E> visitor) throws E {
+		final OBFTableSRG srgTo = from instanceof OBFTableSRG && to instanceof OBFTableSRG ? (OBFTableSRG)to : null;
+		for (final TargetType type : TargetType.values()) {
+			final boolean inFrom = from.supportsType(type);
+			final boolean inTo = to.supportsType(type);
+			if (inFrom) {
+				from.forEach(type, new EntryVisitor<E>() {
+					public void visit(String obf, String srg, String deobf) throws E {
+						String newDeobf = inTo ? to.deobf(obf, type) : null;
+						if (newDeobf == null) {
+							visitor.visit(type, Change.REMOVED, obf, srg, deobf);
+							return;
+						}
+						String newSrg = srgTo == null ? newDeobf : srgTo.getSRGFromObf(obf, type);
+						if (!newDeobf.equals(deobf) || (srgTo != null && !newSrg.equals(srg))) {
+							visitor.visit(type, Change.CHANGED, obf, newSrg, newDeobf);
+						}
+					}
+				});
+			}
+			if (inTo) {
+				to.forEach(type, new EntryVisitor<E>() {
+					public void visit(String obf, String srg, String deobf) throws E {
+						if (!inFrom || !from.hasObf(obf, type)) visitor.visit(type, Change.ADDED, obf, srg, deobf);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Writes the differences between two tables as a patch.  Lines are written as they are found, the patch is never held in memory.
+	 *
+	 * @return The number of changes written
+	 */
+	public static int write(OBFTable from, OBFTable to, final Writer out) throws IOException {
+		out.write(HEADER);
+		out.write('\n');
+		final int[] count = new int[1];
+		diff(from, to, new Visitor<IOException>() {
+			public void visit(TargetType type, Change change, String obf, String srg, String deobf) throws IOException {
+				out.write(change.getSymbol());
+				out.write('\t');
+				out.write(type.name());
+				out.write('\t');
+				out.write(obf);
+				if (change != Change.REMOVED) {
+					out.write('\t');
+					out.write(srg);
+					out.write('\t');
+					out.write(deobf);
+				}
+				out.write('\n');
+				count[0]++;
+			}
+		});
+		out.flush();
+		return count[0];
+	}
+
+	/**
+	 * Applies a patch to a table in place.
+	 * Added and changed entries overwrite whatever the table holds for their obfuscated name, removals of names the table does not hold are ignored.
+	 *
+	 * @param in	The patch to read
+	 * @param table	The table to modify.  Must support {@link OBFTable#removeObf(String, TargetType)} if the patch removes entries.
+	 * @return The number of changes read
+	 */
+	public static int apply(BufferedReader in, OBFTable table) throws IOException {
+		MappingBatch batch = new MappingBatch();
+		int count = 0;
+		int line = 0;
+		String str;
+		while ((str = in.readLine()) != null) {
+			line++;
+			if (str.isEmpty() || str.charAt(0) == '#') continue;
+			Change change = str.length() < 2 || str.charAt(1) != '\t' ? null : Change.getChange(str.charAt(0));
+			if (change == null) throw new FormatException("Unknown change on line " + line + ": \"" + str + "\"");
+			String[] parts = str.split("\t", -1);
+			if (parts.length != (change == Change.REMOVED ? 3 : 5)) throw new FormatException("Format error on line " + line + ": \"" + str + "\"");
+			TargetType type;
+			try {
+				type = TargetType.valueOf(parts[1]);
+			} catch (IllegalArgumentException e) {
+				throw new FormatException("Illegal target type on line " + line + ": \"" + parts[1] + "\"");
+			}
+			if (change == Change.REMOVED) {
+				// Additions are held back for a single bulk insert, so they have to land before a removal that might concern them
+				if (!batch.isEmpty()) {
+					table.addAll(batch, true);
+					batch.clear();
+				}
+				table.removeObf(parts[2], type);
+			} else {
+				batch.addTypeSRG(parts[2], parts[3], parts[4], type);
+			}
+			count++;
+		}
+		if (!batch.isEmpty()) table.addAll(batch, true);
+		return count;
+	}
+}